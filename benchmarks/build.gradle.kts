@@ -0,0 +1,37 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+dependencies {
+    jmh("com.google.guava:guava:31.0.1-android")
+    jmh("org.slf4j:slf4j-api:2.0.10")
+
+    jmh(project(":project"))
+    jmh(project(":project-impl"))
+    jmh(project(":completions"))
+    jmh(project(":javac"))
+}
+
+jmh {
+    jmhVersion.set("1.37")
+
+    // Fixed settings so runs on different machines and commits can be compared.
+    fork.set(2)
+    warmupIterations.set(5)
+    warmup.set("1s")
+    iterations.set(10)
+    timeOnIteration.set("1s")
+    resultFormat.set("JSON")
+
+    // ./gradlew :benchmarks:jmh -PjmhIncludes=Completion
+    if (project.hasProperty("jmhIncludes")) {
+        includes.set(listOf(project.property("jmhIncludes").toString()))
+    }
+
+    jvmArgsAppend.set(listOf(
+        "-Xms1g",
+        "-Xmx1g",
+        "-Dbenchmark.androidJar=" + rootProject.file("completions/src/test/resources/android.jar")
+    ))
+}
@@ -0,0 +1,84 @@
+package com.tyron.code.benchmarks;
+
+import com.tyron.code.info.builder.SourceClassInfoBuilder;
+import com.tyron.code.java.analysis.Analyzer;
+import com.tyron.code.java.completion.Completor;
+import com.tyron.code.project.ModuleManager;
+import com.tyron.code.project.file.FileManager;
+import com.tyron.code.project.file.SimpleFileManager;
+import com.tyron.code.project.impl.FileSystemModuleManager;
+import com.tyron.code.project.impl.ModuleInitializer;
+import com.tyron.code.project.impl.model.JavaModuleImpl;
+import com.tyron.code.project.impl.model.JdkModuleImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * A project in a temporary directory with the bundled android.jar as its JDK, set up the same way
+ * as the completion tests.
+ */
+final class BenchmarkProject {
+
+    /**
+     * @return the android.jar passed by the build, falling back to the copy of the completion
+     * tests when the benchmarks are started from the repository root
+     */
+    static Path androidJar() {
+        String property = System.getProperty("benchmark.androidJar");
+        Path jar = property != null ? Paths.get(property) : Paths.get("completions/src/test/resources/android.jar");
+        if (!Files.exists(jar)) {
+            throw new IllegalStateException("android.jar not found at " + jar.toAbsolutePath()
+                    + ", set -Dbenchmark.androidJar");
+        }
+        return jar;
+    }
+
+    final Path root;
+    final FileManager fileManager;
+    final ModuleManager moduleManager;
+    final JavaModuleImpl rootModule;
+
+    private BenchmarkProject(Path root, FileManager fileManager, ModuleManager moduleManager, JavaModuleImpl rootModule) {
+        this.root = root;
+        this.fileManager = fileManager;
+        this.moduleManager = moduleManager;
+        this.rootModule = rootModule;
+    }
+
+    static BenchmarkProject create() throws IOException {
+        Path root = Files.createTempDirectory("benchmark");
+        FileManager fileManager = new SimpleFileManager(root, List.of());
+        ModuleManager moduleManager = new FileSystemModuleManager(fileManager, root);
+        moduleManager.initialize();
+
+        JavaModuleImpl rootModule = (JavaModuleImpl) moduleManager.getRootModule().getIncludedModules().get(0);
+
+        JdkModuleImpl jdkModule = new JdkModuleImpl(moduleManager, androidJar(), "11");
+        new ModuleInitializer().initializeModule(jdkModule);
+        rootModule.setJdk(jdkModule);
+        return new BenchmarkProject(root, fileManager, moduleManager, rootModule);
+    }
+
+    /**
+     * Writes a source file to the source directory of the root module and registers its class.
+     */
+    Path addSourceFile(String relativePath, String contents) throws IOException {
+        Path path = rootModule.getSourceDirectory().resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, contents);
+        rootModule.addClass(new SourceClassInfoBuilder(path).build());
+        return path;
+    }
+
+    Analyzer newAnalyzer() {
+        return new Analyzer(fileManager, rootModule);
+    }
+
+    Completor newCompletor(Analyzer analyzer) {
+        return new Completor(fileManager, analyzer);
+    }
+}
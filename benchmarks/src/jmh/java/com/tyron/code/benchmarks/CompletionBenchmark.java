@@ -0,0 +1,93 @@
+package com.tyron.code.benchmarks;
+
+import com.tyron.code.java.analysis.Analyzer;
+import com.tyron.code.java.completion.CompletionResult;
+import com.tyron.code.java.completion.Completor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end latency of {@link Completor#getCompletionResult(Path, int, int)}: content fixing,
+ * partial analysis of the file and collecting the candidates.
+ *
+ * <p>Each invocation uses a new {@link Completor}, so its incremental cache is never hit, and changes
+ * a trailing comment of the file so the analysis is not reused. {@link #memberSelectUnchanged()}
+ * keeps the content, measuring a repeated request that reuses the retained analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CompletionBenchmark {
+
+    /** Number of generated methods in the completed file. */
+    @Param({"20", "200"})
+    public int methods;
+
+    private BenchmarkProject project;
+    private Analyzer analyzer;
+
+    private Path file;
+    private SyntheticSources.Insertion memberSelect;
+    private SyntheticSources.Insertion symbol;
+    private int edit;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        project = BenchmarkProject.create();
+        for (int i = 0; i < 10; i++) {
+            project.addSourceFile("bench/Helper" + i + ".java",
+                    SyntheticSources.javaClass("bench", "Helper" + i, 20));
+        }
+
+        String source = SyntheticSources.javaClass("bench", "Main", methods);
+        int method = methods / 2;
+        memberSelect = SyntheticSources.insertStatement(source, method, "values.");
+        symbol = SyntheticSources.insertStatement(source, method, "val");
+        file = project.addSourceFile("bench/Main.java", source);
+        project.fileManager.openFileForSnapshot(file.toUri(), source);
+
+        analyzer = project.newAnalyzer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        analyzer.close();
+    }
+
+    @Benchmark
+    public CompletionResult memberSelect() {
+        return complete(memberSelect, true);
+    }
+
+    @Benchmark
+    public CompletionResult symbol() {
+        return complete(symbol, true);
+    }
+
+    @Benchmark
+    public CompletionResult memberSelectUnchanged() {
+        return complete(memberSelect, false);
+    }
+
+    private CompletionResult complete(SyntheticSources.Insertion insertion, boolean edited) {
+        String content = edited ? insertion.content() + "// edit " + edit++ + "\n" : insertion.content();
+        project.fileManager.setSnapshotContent(file.toUri(), content);
+
+        // a new completor has no incremental cache from the previous invocation
+        Completor completor = project.newCompletor(analyzer);
+        int[] position = insertion.lineAndColumn();
+        return completor.getCompletionResult(file, position[0], position[1]);
+    }
+}
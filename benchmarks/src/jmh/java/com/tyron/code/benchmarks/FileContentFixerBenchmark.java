@@ -0,0 +1,53 @@
+package com.tyron.code.benchmarks;
+
+import com.tyron.code.java.parsing.FileContentFixer;
+import com.tyron.code.java.parsing.JavaTokens;
+import com.tyron.code.java.parsing.ParserContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileContentFixer#fixFileContent(CharSequence)} lexes the whole file, the completion relexes
+ * the tokens of its previous request with {@link JavaTokens#relex} instead. The input has an
+ * unfinished member select in the middle of the file, typed since the previous request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileContentFixerBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int methods;
+
+    private ParserContext parserContext;
+    private FileContentFixer fixer;
+    private String content;
+    private JavaTokens previousTokens;
+
+    @Setup
+    public void setup() {
+        parserContext = new ParserContext();
+        fixer = new FileContentFixer(parserContext);
+        String source = SyntheticSources.javaClass("bench", "Main", methods);
+        content = SyntheticSources.insertStatement(source, methods / 2, "values.").content();
+        previousTokens = JavaTokens.lex(parserContext, SyntheticSources.insertStatement(source, methods / 2, "values").content());
+    }
+
+    @Benchmark
+    public FileContentFixer.FixedContent fixFileContent() {
+        return fixer.fixFileContent(content);
+    }
+
+    @Benchmark
+    public FileContentFixer.FixedContent fixEditedFileContent() {
+        return fixer.fixFileContent(previousTokens.relex(parserContext, content));
+    }
+}
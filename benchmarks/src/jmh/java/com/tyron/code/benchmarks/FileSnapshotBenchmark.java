@@ -0,0 +1,62 @@
+package com.tyron.code.benchmarks;
+
+import com.tyron.code.project.file.FileSnapshot;
+import com.tyron.code.project.model.TextPosition;
+import com.tyron.code.project.model.TextRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileSnapshot#applyEdit} is called for every keystroke in the editor. The benchmark types
+ * in the middle of the file, alternating between inserting a character and deleting it again so
+ * the size of the file stays the same.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileSnapshotBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int methods;
+
+    private String source;
+    private FileSnapshot snapshot;
+    private int line;
+    private boolean inserted;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        source = SyntheticSources.javaClass("bench", "Main", methods);
+        line = (int) source.lines().count() / 2;
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        // the snapshot keeps every applied edit, start each iteration with an empty history
+        snapshot = FileSnapshot.create(URI.create("file:///bench/Main.java"), source);
+        inserted = false;
+    }
+
+    @Benchmark
+    public FileSnapshot typeAndDelete() {
+        TextPosition start = TextPosition.create(line, 4);
+        if (inserted) {
+            snapshot.applyEdit(TextRange.create(start, TextPosition.create(line, 5)), Optional.of(1), "");
+        } else {
+            snapshot.applyEdit(TextRange.create(start, start), Optional.empty(), "x");
+        }
+        inserted = !inserted;
+        return snapshot;
+    }
+}
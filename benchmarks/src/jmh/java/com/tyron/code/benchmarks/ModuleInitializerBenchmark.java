@@ -0,0 +1,36 @@
+package com.tyron.code.benchmarks;
+
+import com.tyron.code.info.JvmClassInfo;
+import com.tyron.code.project.impl.ModuleInitializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading every class of the bundled android.jar, which happens for the JDK of each opened project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModuleInitializerBenchmark {
+
+    private Path androidJar;
+
+    @Setup
+    public void setup() {
+        androidJar = BenchmarkProject.androidJar();
+    }
+
+    @Benchmark
+    public List<JvmClassInfo> getJvmClasses() {
+        return ModuleInitializer.getJvmClasses(androidJar);
+    }
+}
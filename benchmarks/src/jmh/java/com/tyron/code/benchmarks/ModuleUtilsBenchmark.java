@@ -0,0 +1,66 @@
+package com.tyron.code.benchmarks;
+
+import com.tyron.code.info.ClassInfo;
+import com.tyron.code.info.ClassNameIndex;
+import com.tyron.code.project.util.ModuleUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ModuleUtils#getAllClasses} collects the classes visible to a module,
+ * {@link ModuleUtils#findClasses} searches them by simple name for the symbol completion and
+ * {@link ModuleUtils#findClassesBySimpleName} resolves the receiver of a member select that is not
+ * imported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModuleUtilsBenchmark {
+
+    /** Number of source classes in the module, the JDK classes come on top. */
+    @Param({"100", "1000"})
+    public int classes;
+
+    private BenchmarkProject project;
+
+    @Setup
+    public void setup() throws IOException {
+        project = BenchmarkProject.create();
+        for (int i = 0; i < classes; i++) {
+            String packageName = "bench.p" + i % 10;
+            project.addSourceFile(packageName.replace('.', '/') + "/Class" + i + ".java",
+                    SyntheticSources.javaClass(packageName, "Class" + i, 1));
+        }
+    }
+
+    @Benchmark
+    public Set<ClassInfo> getAllClasses() {
+        return ModuleUtils.getAllClasses(project.rootModule);
+    }
+
+    @Benchmark
+    public List<ClassInfo> findClassesBySimpleName() {
+        return ModuleUtils.findClassesBySimpleName(project.rootModule, "List");
+    }
+
+    @Benchmark
+    public List<ClassNameIndex.Match<?>> findClassesByPrefix() {
+        return ModuleUtils.findClasses(project.rootModule, "Str", 100);
+    }
+
+    @Benchmark
+    public List<ClassNameIndex.Match<?>> findClassesByCamelHump() {
+        return ModuleUtils.findClasses(project.rootModule, "ArLi", 100);
+    }
+}
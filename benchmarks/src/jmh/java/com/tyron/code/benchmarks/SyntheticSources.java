@@ -0,0 +1,104 @@
+package com.tyron.code.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates Java sources that resemble application code: fields, accessors, loops over
+ * collections, string handling and calls between the generated classes.
+ *
+ * <p>The output only depends on the arguments, so every run of a benchmark sees the same input.
+ */
+final class SyntheticSources {
+
+    private static final String[] TYPES = {"String", "int", "long", "boolean", "List<String>", "Map<String, Integer>"};
+
+    private SyntheticSources() {
+    }
+
+    /**
+     * @param methods the number of methods besides the accessors, each about twelve lines long
+     */
+    static String javaClass(String packageName, String className, int methods) {
+        Random random = new Random(className.hashCode() * 31L + methods);
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append(";\n\n");
+        sb.append("import java.util.ArrayList;\n");
+        sb.append("import java.util.HashMap;\n");
+        sb.append("import java.util.List;\n");
+        sb.append("import java.util.Map;\n\n");
+        sb.append("/**\n * Generated for benchmarks.\n */\n");
+        sb.append("public class ").append(className).append(" {\n");
+
+        int fields = Math.max(2, methods / 4);
+        for (int i = 0; i < fields; i++) {
+            String type = TYPES[i % TYPES.length];
+            sb.append("    private ").append(type).append(" field").append(i).append(";\n");
+        }
+        sb.append('\n');
+        for (int i = 0; i < fields; i++) {
+            String type = TYPES[i % TYPES.length];
+            sb.append("    public ").append(type).append(" getField").append(i).append("() {\n");
+            sb.append("        return field").append(i).append(";\n");
+            sb.append("    }\n\n");
+        }
+        for (int i = 0; i < methods; i++) {
+            appendMethod(sb, i, random);
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void appendMethod(StringBuilder sb, int index, Random random) {
+        sb.append("    public Map<String, Integer> process").append(index).append("(List<String> values, int limit) {\n");
+        sb.append("        Map<String, Integer> counts = new HashMap<>();\n");
+        sb.append("        List<String> accepted = new ArrayList<>();\n");
+        sb.append("        for (String value : values) {\n");
+        sb.append("            String key = value.trim().toLowerCase();\n");
+        sb.append("            if (key.length() > ").append(random.nextInt(8)).append(" && accepted.size() < limit) {\n");
+        sb.append("                accepted.add(key);\n");
+        sb.append("                counts.merge(key, ").append(1 + random.nextInt(4)).append(", Integer::sum);\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        StringBuilder summary = new StringBuilder(\"process").append(index).append("\");\n");
+        sb.append("        summary.append(':').append(accepted.size());\n");
+        sb.append("        counts.put(summary.toString(), accepted.isEmpty() ? 0 : accepted.get(0).hashCode());\n");
+        sb.append("        return counts;\n");
+        sb.append("    }\n\n");
+    }
+
+    /**
+     * Inserts {@code statement} as the first statement of the method {@code process<methodIndex>}
+     * of a class generated by {@link #javaClass}.
+     *
+     * @return the content and the offset right after the inserted statement
+     */
+    static Insertion insertStatement(String javaClass, int methodIndex, String statement) {
+        String signature = "process" + methodIndex + "(List<String> values, int limit) {\n";
+        int offset = javaClass.indexOf(signature);
+        if (offset < 0) {
+            throw new IllegalArgumentException("No method process" + methodIndex);
+        }
+        offset += signature.length();
+        String inserted = "        " + statement;
+        String content = javaClass.substring(0, offset) + inserted + "\n" + javaClass.substring(offset);
+        return new Insertion(content, offset + inserted.length());
+    }
+
+    record Insertion(String content, int offset) {
+
+        /**
+         * @return the zero based line and column of the offset
+         */
+        int[] lineAndColumn() {
+            int line = 0;
+            int lineStart = 0;
+            for (int i = 0; i < offset; i++) {
+                if (content.charAt(i) == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+            }
+            return new int[]{line, offset - lineStart};
+        }
+    }
+}
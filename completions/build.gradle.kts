@@ -8,7 +8,6 @@ dependencies {
     testImplementation("com.google.truth:truth:1.2.0")
 
     implementation("com.google.guava:guava:31.0.1-android")
-    implementation("me.xdrop:fuzzywuzzy:1.2.0")
     implementation("org.slf4j:slf4j-api:2.0.10")
     implementation("org.jetbrains:annotations:24.1.0")
 
@@ -6,6 +6,7 @@ import com.tyron.code.info.JvmClassInfo;
 import com.tyron.code.info.SourceClassInfo;
 import com.tyron.code.java.parsing.MethodBodyPruner;
 import com.tyron.code.java.parsing.ParserContext;
+import com.tyron.code.java.parsing.SignatureStubCache;
 import com.tyron.code.project.file.FileManager;
 import com.tyron.code.project.file.FileSnapshot;
 import com.tyron.code.project.model.JavaFileInfo;
@@ -25,14 +26,27 @@ import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 public class ModuleFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
 
     private static final Logger LOG = Logger.getLogger("main");
+
+    /** Where the signature stubs of the sources of a module are saved, relative to the module root. */
+    private static final String SIGNATURE_STUB_DIRECTORY = ".codeassist/stubs";
+
     private Path completingFile;
     private String completingContents;
 
+    /**
+     * Source files handed to javac through {@link StandardLocation#SOURCE_PATH} and the stamp of
+     * their content at that time. A javac context that is reused across analyses keeps the
+     * symbols created from these files, so it must be dropped once one of them changes.
+     */
+    private final Map<Path, Stamp> sourcePathStamps = new HashMap<>();
+    private final Map<String, List<Path>> listedSourcePackages = new HashMap<>();
+
     private static StandardJavaFileManager createDelegateFileManager() {
         var compiler = JavacTool.create();
         return compiler.getStandardFileManager(ModuleFileManager::logError, null, Charset.defaultCharset());
@@ -44,12 +58,14 @@ public class ModuleFileManager extends ForwardingJavaFileManager<StandardJavaFil
 
     private final FileManager projectFileManager;
     private final JavaModule module;
+    private final SignatureStubCache stubCache;
 
 
     public ModuleFileManager(FileManager projectFileManager, JavaModule module) {
         super(createDelegateFileManager());
         this.projectFileManager = projectFileManager;
         this.module = module;
+        this.stubCache = SignatureStubCache.persisted(module.getRootDirectory().resolve(SIGNATURE_STUB_DIRECTORY));
 
         try {
             JdkModule jdkModule = module.getJdkModule();
@@ -71,7 +87,9 @@ public class ModuleFileManager extends ForwardingJavaFileManager<StandardJavaFil
     @Override
     public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
         if (location == StandardLocation.SOURCE_PATH) {
-            return ModuleUtils.getFiles(packageName, module).stream()
+            List<ClassInfo> files = ModuleUtils.getFiles(packageName, module);
+            listedSourcePackages.put(packageName, getPaths(files));
+            return files.stream()
                     .map(this::asSourceFileObject)
                     ::iterator;
         }
@@ -136,24 +154,104 @@ public class ModuleFileManager extends ForwardingJavaFileManager<StandardJavaFil
         Path path = sourceClassInfo.getPath();
 
 
-        String content = Optional.ofNullable(completingFile.equals(path) ? completingFile : null)
-                .map(it -> completingContents)
-                .orElse(projectFileManager.getFileContent(path)
-                        .map(contents -> pruneMethodBodiesIfNeeded(path, contents))
-                        .orElse("").toString());
+        if (path.equals(completingFile)) {
+            return FileSnapshot.create(path.toUri(), completingContents);
+        }
 
-        return FileSnapshot.create(path.toUri(), content);
+        Stamp stamp = getStamp(path);
+        sourcePathStamps.put(path, stamp);
+        CharSequence content = pruneMethodBodiesIfNeeded(path, stamp);
+        return FileSnapshot.create(path.toUri(), content == null ? "" : content);
     }
 
-    private CharSequence pruneMethodBodiesIfNeeded(Path path, CharSequence content) {
-        if (!projectFileManager.isFileOpen(path)) {
-            ParserContext context = new ParserContext();
-            JCTree.JCCompilationUnit unit = context.parse(path.getFileName().toString(), content);
-            MethodBodyPruner methodBodyPruner = new MethodBodyPruner();
-            return methodBodyPruner.translate(unit).toString();
+    /**
+     * The content of a file as seen by javac. Open files are compared by the length and hash of
+     * their content since they change without touching the disk, closed files by their
+     * modification time and size.
+     */
+    private record Stamp(boolean open, long modifiedTime, long size, int contentHash) {
+    }
+
+    /**
+     * @return the stamp of the file, or {@code null} if it can not be read
+     */
+    private Stamp getStamp(Path path) {
+        if (projectFileManager.isFileOpen(path)) {
+            return projectFileManager.getFileContent(path)
+                    .map(CharSequence::toString)
+                    .map(content -> new Stamp(true, 0, content.length(), content.hashCode()))
+                    .orElse(null);
         }
+        try {
+            return new Stamp(false, java.nio.file.Files.getLastModifiedTime(path).toMillis(), java.nio.file.Files.size(path), 0);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<Path> getPaths(List<ClassInfo> files) {
+        return files.stream()
+                .filter(it -> it instanceof SourceClassInfo)
+                .map(it -> ((SourceClassInfo) it).getPath())
+                .toList();
+    }
+
+    /**
+     * @return whether the source files and packages served through the source path since the
+     * last {@link #resetSourcePathState()} are unchanged
+     */
+    public boolean isSourcePathUpToDate() {
+        for (Map.Entry<String, List<Path>> entry : listedSourcePackages.entrySet()) {
+            if (!entry.getValue().equals(getPaths(ModuleUtils.getFiles(entry.getKey(), module)))) {
+                return false;
+            }
+        }
+        for (Map.Entry<Path, Stamp> entry : sourcePathStamps.entrySet()) {
+            if (!Objects.equals(entry.getValue(), getStamp(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the given file has been served through the source path since the last
+     * {@link #resetSourcePathState()}
+     */
+    public boolean isLoadedFromSourcePath(Path path) {
+        return sourcePathStamps.containsKey(path);
+    }
+
+    /**
+     * Forgets the source files served so far, called when the javac context that loaded them is
+     * discarded.
+     */
+    public void resetSourcePathState() {
+        sourcePathStamps.clear();
+        listedSourcePackages.clear();
+    }
+
+    /**
+     * Closed files are only needed for their signatures, their stubs are cached by their stamp.
+     */
+    private CharSequence pruneMethodBodiesIfNeeded(Path path, Stamp stamp) {
+        if (projectFileManager.isFileOpen(path)) {
+            return projectFileManager.getFileContent(path).orElse(null);
+        }
+        Supplier<String> stub = () -> projectFileManager.getFileContent(path)
+                .map(content -> pruneMethodBodies(path, content))
+                .orElse(null);
+        // without a stamp the file can not be told apart from a changed one
+        return stamp == null || stamp.open()
+                ? stub.get()
+                : stubCache.get(path, stamp.modifiedTime(), stamp.size(), stub);
+    }
 
-        return content;
+    private static String pruneMethodBodies(Path path, CharSequence content) {
+        ParserContext context = new ParserContext();
+        JCTree.JCCompilationUnit unit = context.parse(path.getFileName().toString(), content);
+        MethodBodyPruner methodBodyPruner = new MethodBodyPruner();
+        return methodBodyPruner.translate(unit).toString();
     }
 
     public void setCompletingFile(Path path, String contents) {
@@ -5,10 +5,20 @@ import shadow.com.sun.source.tree.CompilationUnitTree;
 import shadow.com.sun.tools.javac.api.JavacTaskImpl;
 import shadow.javax.lang.model.element.Element;
 
+/**
+ * @param partial whether only the member around a position has been attributed, see
+ *                {@link Analyzer#submitPartial}
+ * @param classPathGeneration identifies the classpath of the analysis, see
+ *                            {@link AnalysisSession#getClassPathGeneration()}
+ * @param timings how long javac took for this analysis
+ */
 public record AnalysisResult(JavaModule module,
                              JavacTaskImpl javacTask,
                              CompilationUnitTree parsedTree,
-                             Iterable<? extends Element> analyzed, Analyzer analyzer
+                             Iterable<? extends Element> analyzed, Analyzer analyzer,
+                             boolean partial,
+                             long classPathGeneration,
+                             AnalysisTimings timings
 ) {
 
 }
\ No newline at end of file
@@ -0,0 +1,303 @@
+package com.tyron.code.java.analysis;
+
+import com.tyron.code.logging.Logging;
+import com.tyron.code.project.util.LatencyHistogram;
+import com.tyron.code.project.util.ThreadPoolFactory;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs analysis jobs one at a time on a single background thread.
+ *
+ * <ul>
+ *     <li>Each {@link Priority} lane holds at most one pending job, submitting a job cancels the
+ *     pending and the running job of the same lane (latest request wins).</li>
+ *     <li>Jobs wait for the debounce of their lane before they become eligible to run, a newer
+ *     job submitted in the meantime replaces them without any work being done.</li>
+ *     <li>Among eligible jobs the one in the most important lane runs first. A job submitted to
+ *     a more important lane also preempts a running job of a less important lane, the preempted
+ *     job is queued again unless a newer job replaced it.</li>
+ * </ul>
+ *
+ * <p>Submitting never blocks. Cancellation is cooperative, a running job observes it through
+ * {@link #checkCancelled()} and a cancelled job completes its future with a
+ * {@link CancellationException}, even if it ran to the end. The time from the cancellation of a
+ * running job to the moment it stops is recorded in {@link #getCancellationLatency()}.
+ */
+public class AnalysisScheduler {
+    private static final Logger logger = Logging.get(AnalysisScheduler.class);
+
+    public enum Priority {
+        /**
+         * Requests the user is waiting for, such as completion.
+         */
+        INTERACTIVE,
+        /**
+         * Requests whose results can arrive late, such as diagnostics.
+         */
+        BACKGROUND
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Map<Priority, Duration> debounce = new EnumMap<>(Priority.class);
+    private final Map<Priority, Job<?>> pending = new EnumMap<>(Priority.class);
+    private Job<?> running;
+
+    private final LatencyHistogram cancellationLatency = new LatencyHistogram();
+
+    public AnalysisScheduler() {
+        this(ThreadPoolFactory.newScheduledThreadPool("Analyzer", 1, true));
+    }
+
+    public AnalysisScheduler(ScheduledExecutorService executor) {
+        this.executor = executor;
+        for (Priority priority : Priority.values()) {
+            debounce.put(priority, Duration.ZERO);
+        }
+    }
+
+    /**
+     * Sets how long jobs of the given lane wait for a newer request before they run.
+     */
+    public synchronized void setDebounce(Priority priority, Duration delay) {
+        debounce.put(priority, delay);
+    }
+
+    /**
+     * Queues {@code work} in the given lane.
+     *
+     * @return a future completed with the result of {@code work}, or cancelled once the job is
+     * superseded by a newer job of the same lane or the scheduler is shut down
+     */
+    public <T> CompletableFuture<T> submit(Priority priority, Callable<T> work) {
+        Job<T> job = new Job<>(priority, work);
+        long delay;
+        synchronized (this) {
+            if (executor.isShutdown()) {
+                job.future.cancel(false);
+                return job.future;
+            }
+            Job<?> previous = pending.put(priority, job);
+            if (previous != null) {
+                previous.future.cancel(false);
+            }
+            if (running != null && running.priority.compareTo(priority) >= 0) {
+                // a job of another lane is only paused, it runs again once this one is done
+                running.requestCancel(running.priority != priority);
+            }
+            delay = debounce.get(priority).toNanos();
+            job.notBefore = System.nanoTime() + delay;
+        }
+        job.future.whenComplete((result, error) -> {
+            if (job.future.isCancelled()) {
+                cancel(job);
+            }
+        });
+        try {
+            executor.schedule(this::dispatch, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // shut down since the job was queued
+            job.future.cancel(false);
+        }
+        return job.future;
+    }
+
+    /**
+     * Cancels the running job and drops all pending jobs.
+     */
+    public void cancelAll() {
+        synchronized (this) {
+            pending.values().forEach(job -> job.future.cancel(false));
+            pending.clear();
+            if (running != null) {
+                running.requestCancel(false);
+            }
+        }
+    }
+
+    /**
+     * Throws a {@link CancellationException} if called from a job that has been cancelled.
+     */
+    public void checkCancelled() {
+        Job<?> current = running;
+        if (current != null && current.cancelled && current.thread == Thread.currentThread()) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * @return the time running jobs took to stop after they were cancelled or preempted
+     */
+    public LatencyHistogram getCancellationLatency() {
+        return cancellationLatency;
+    }
+
+    public void shutdown() {
+        shutdown(() -> {});
+    }
+
+    /**
+     * Cancels all jobs and stops the scheduler, {@code whenIdle} runs on the scheduler thread once
+     * the running job, if any, has unwound.
+     */
+    public void shutdown(Runnable whenIdle) {
+        synchronized (this) {
+            cancelAll();
+            executor.execute(whenIdle);
+            executor.shutdown();
+        }
+    }
+
+    private synchronized void cancel(Job<?> job) {
+        if (pending.get(job.priority) == job) {
+            pending.remove(job.priority);
+        }
+        if (running == job) {
+            running.requestCancel(false);
+        }
+    }
+
+    private void dispatch() {
+        Job<?> job;
+        synchronized (this) {
+            if (running != null) {
+                // the running job schedules the next dispatch once it is done
+                return;
+            }
+            job = pollEligible();
+            if (job == null) {
+                return;
+            }
+            running = job;
+            job.thread = Thread.currentThread();
+        }
+
+        try {
+            job.run();
+        } finally {
+            synchronized (this) {
+                running = null;
+                job.thread = null;
+                if (job.preempted && !pending.containsKey(job.priority) && !job.future.isDone()) {
+                    job.preempted = false;
+                    job.cancelled = false;
+                    job.cancelRequestedAt = 0;
+                    pending.put(job.priority, job);
+                }
+            }
+            scheduleNext();
+        }
+    }
+
+    private Job<?> pollEligible() {
+        long now = System.nanoTime();
+        for (Priority priority : Priority.values()) {
+            Job<?> job = pending.get(priority);
+            if (job != null && job.notBefore - now <= 0) {
+                pending.remove(priority);
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private void scheduleNext() {
+        long delay;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            long now = System.nanoTime();
+            delay = pending.values().stream()
+                    .mapToLong(job -> Math.max(0, job.notBefore - now))
+                    .min()
+                    .orElse(0);
+        }
+        if (!executor.isShutdown()) {
+            executor.schedule(this::dispatch, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private class Job<T> {
+        private final Priority priority;
+        private final Callable<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private long notBefore;
+        private volatile boolean cancelled;
+        private volatile boolean preempted;
+        private volatile Thread thread;
+        private volatile long cancelRequestedAt;
+
+        private Job(Priority priority, Callable<T> work) {
+            this.priority = priority;
+            this.work = work;
+        }
+
+        /**
+         * @param preempt whether the job runs again once the preempting job is done. A job that has
+         *                been superseded stays superseded when it is preempted afterwards.
+         */
+        private void requestCancel(boolean preempt) {
+            if (cancelled && !preempted) {
+                return;
+            }
+            preempted = preempt;
+            if (!cancelled) {
+                cancelRequestedAt = System.nanoTime();
+                cancelled = true;
+            }
+        }
+
+        private void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                call();
+            } finally {
+                long requestedAt = cancelRequestedAt;
+                if (requestedAt != 0) {
+                    long latency = System.nanoTime() - requestedAt;
+                    cancellationLatency.recordNanos(latency);
+                    logger.debug("Cancelled analysis stopped after {} us", latency / 1000);
+                }
+            }
+        }
+
+        private void call() {
+            try {
+                T result = work.call();
+                if (cancelled && !preempted) {
+                    // superseded, the result describes stale content
+                    future.cancel(false);
+                } else {
+                    future.complete(result);
+                }
+            } catch (CancellationException e) {
+                if (!preempted) {
+                    future.cancel(false);
+                }
+            } catch (Throwable e) {
+                if (cancelled) {
+                    // failures while unwinding a cancelled run are expected
+                    if (!preempted) {
+                        future.cancel(false);
+                    }
+                    return;
+                }
+                logger.error("Analysis failed", e);
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.tyron.code.java.analysis;
+
+import com.tyron.code.java.ModuleFileManager;
+import com.tyron.code.java.parsing.MethodBodyPruner;
+import com.tyron.code.logging.Logging;
+import com.tyron.code.project.file.FileManager;
+import com.tyron.code.project.file.FileSnapshot;
+import com.tyron.code.project.model.module.JavaModule;
+import com.tyron.code.project.util.ModuleUtils;
+import org.slf4j.Logger;
+import shadow.com.sun.source.tree.CompilationUnitTree;
+import shadow.com.sun.tools.javac.api.JavacTaskImpl;
+import shadow.com.sun.tools.javac.api.JavacTool;
+import shadow.com.sun.tools.javac.tree.JCTree;
+import shadow.com.sun.tools.javac.util.Context;
+import shadow.javax.lang.model.element.Element;
+import shadow.javax.tools.Diagnostic;
+import shadow.javax.tools.DiagnosticCollector;
+import shadow.javax.tools.DiagnosticListener;
+import shadow.javax.tools.JavaFileObject;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A javac session bound to a single {@link JavaModule}.
+ *
+ * <p>Creating a javac context means loading and completing the platform and classpath symbols
+ * again, which dominates the cost of analyzing a single file. The session keeps one warm
+ * {@link ReusableContext} together with the file manager that populated it, so consecutive
+ * analyses only pay for parsing and attributing the file being analyzed.
+ *
+ * <p>The context is discarded and rebuilt when javac reports it as polluted, when a source file
+ * it loaded through the source path has changed since, or when the analyzed file itself was
+ * previously loaded through the source path, since javac would then see the class twice.
+ *
+ * <p>The last completed analysis stays alive on the warm context until another analysis needs it,
+ * so repeated requests for unchanged contents, such as completion asking again after the caret
+ * moved, are answered without running javac. Sessions are keyed by classpath, an analysis is
+ * therefore never reused across a classpath change.
+ *
+ * <p>Sessions are shared process wide. {@link #acquire(FileManager, JavaModule)} returns the
+ * session of a module and classpath if one is already in use, so every analyzer of a module reads
+ * the jars once and completes the platform symbols once. The session is closed when its last user
+ * calls {@link #release()}.
+ */
+public class AnalysisSession {
+    private static final Logger logger = Logging.get(AnalysisSession.class);
+
+    private static final JavacTool SYSTEM_PROVIDER = JavacTool.create();
+
+    private static final Map<Key, AnalysisSession> SESSIONS = new HashMap<>();
+
+    private static final AtomicLong CLASS_PATH_GENERATIONS = new AtomicLong();
+
+    /**
+     * Modules and file managers are compared by identity, the classpath is part of the key so a
+     * module whose dependencies changed gets a new session.
+     */
+    private record Key(FileManager fileManager, JavaModule module, List<Path> classPath) {
+    }
+
+    /**
+     * Returns the shared session of the module, creating it if needed. Every call must be paired
+     * with a call to {@link #release()}.
+     */
+    public static AnalysisSession acquire(FileManager fileManager, JavaModule module) {
+        Key key = new Key(fileManager, module, ModuleUtils.getCompileClassPath(module));
+        synchronized (SESSIONS) {
+            AnalysisSession session = SESSIONS.computeIfAbsent(key, k -> new AnalysisSession(k, fileManager, module));
+            session.references++;
+            return session;
+        }
+    }
+
+    private final Key key;
+    private final long classPathGeneration = CLASS_PATH_GENERATIONS.incrementAndGet();
+    private int references;
+    private boolean closed;
+
+    private final Object lock = new Object();
+
+    private final JavaModule module;
+    private final ModuleFileManager fileManager;
+    private final List<String> options;
+
+    private ReusableContext context;
+    private Retained retained;
+    private int analysisCount;
+    private int reuseCount;
+    private int retainedHitCount;
+
+    private AnalysisSession(Key key, FileManager fileManager, JavaModule module) {
+        this.key = key;
+        this.module = module;
+        this.fileManager = new ModuleFileManager(fileManager, module);
+        this.options = javacOptions(module);
+    }
+
+    /**
+     * @return the javac options used to analyze the sources of the module
+     */
+    static List<String> javacOptions(JavaModule module) {
+        return List.of(
+                "-XDide",
+                "-XDcompilePolicy=byfile",
+                "-XD-Xprefer=source",
+                "-XDkeepCommentsOverride=ignore",
+                "-XDsuppressAbortOnBadClassFile",
+                "-XDshould-stop.at=GENERATE",
+                "-XDdiags.formatterOptions=-source",
+                "-XDdiags.layout=%L%m|%L%m|%L%m",
+                "-g:source",
+                "-g:lines",
+                "-g:vars",
+                "-bootclasspath",
+                module.getJdkModule().getPath().toString(),
+                "-XDbreakDocCommentParsingOnError=false",
+                "-Xlint:cast",
+                "-Xlint:deprecation",
+                "-Xlint:empty",
+                "-Xlint:fallthrough",
+                "-Xlint:finally",
+                "-Xlint:path",
+                "-Xlint:unchecked",
+                "-Xlint:varargs",
+                "-Xlint:static"
+        );
+    }
+
+    public JavaModule getModule() {
+        return module;
+    }
+
+    /**
+     * @return a number that identifies the classpath of this session. Sessions are keyed by
+     * classpath, every session gets its own number, so two analyses see the same classpath
+     * symbols when their numbers are equal.
+     */
+    public long getClassPathGeneration() {
+        return classPathGeneration;
+    }
+
+    /**
+     * Gives up a reference obtained from {@link #acquire(FileManager, JavaModule)}, closing the
+     * session once no references are left. Waits for a run in progress to finish before closing.
+     */
+    public void release() {
+        synchronized (SESSIONS) {
+            if (--references > 0) {
+                return;
+            }
+            SESSIONS.remove(key);
+        }
+
+        synchronized (lock) {
+            closed = true;
+            retained = null;
+            context = null;
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close file manager of {}", module.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Parses, enters and attributes the given file contents and passes the result to
+     * {@code consumer}. The task and everything obtained from the analysis must not escape
+     * {@code consumer}.
+     *
+     * <p>The last completed analysis is retained together with its context. A request for the
+     * same file and contents is served from it without running javac again, as long as the source
+     * files it was attributed against are unchanged, and its diagnostics are reported to
+     * {@code diagnosticListener} again. A partial analysis only serves requests for the same
+     * position, a full analysis serves every request for the contents. Any other request evicts
+     * the retained analysis, so the session never pins more than the context it keeps warm anyway.
+     *
+     * <p>javac calls {@code cancellationCheck} whenever it starts a compile phase and before it
+     * attributes a method or block. A run aborted this way throws a {@link CancellationException}.
+     * The context is kept for the next run if it was stopped between the methods of the file, and
+     * discarded if it was stopped within a body or while javac completed another file. A run that
+     * is already cancelled when it gets the session does not touch the context.
+     *
+     * <p>Runs are serialized, a call blocks while another run holds the context.
+     *
+     * @param retainedPosition the position whose enclosing member should be attributed, the
+     *                         bodies of the other members are pruned, or {@code -1} to attribute
+     *                         the whole file
+     * @param cancellationCheck throws a {@link CancellationException} once the run is no longer
+     *                          needed
+     */
+    public <T> T analyze(Path file,
+                         String contents,
+                         int retainedPosition,
+                         DiagnosticListener<? super JavaFileObject> diagnosticListener,
+                         Runnable cancellationCheck,
+                         Function<Analysis, T> consumer) throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Session of " + module.getName() + " is closed");
+            }
+            cancellationCheck.run();
+
+            if (retained != null
+                    && retained.matches(file, contents, retainedPosition)
+                    && fileManager.isSourcePathUpToDate()) {
+                retainedHitCount++;
+                retained.diagnostics().forEach(diagnosticListener::report);
+                return consume(retained, retained.analysis().withTimings(AnalysisTimings.RETAINED), cancellationCheck, consumer);
+            }
+            evict(true);
+
+            ReusableContext reusableContext = acquireContext(file);
+            Context javacContext = reusableContext != null ? reusableContext.get() : new Context();
+            CancelService cancelService = CancelService.instance(javacContext);
+
+            DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+            DiagnosticListener<JavaFileObject> listener = diagnostic -> {
+                collector.report(diagnostic);
+                diagnosticListener.report(diagnostic);
+            };
+            JavacTaskImpl task = (JavacTaskImpl) SYSTEM_PROVIDER.getTask(
+                    new PrintWriter(Writer.nullWriter()),
+                    fileManager,
+                    listener,
+                    options,
+                    null,
+                    List.of(FileSnapshot.create(file.toUri(), contents)),
+                    javacContext
+            );
+            if (reusableContext != null) {
+                task.addTaskListener(reusableContext.taskListener());
+            }
+            task.addTaskListener(cancelService);
+
+            fileManager.setCompletingFile(file, contents);
+            cancelService.begin(cancellationCheck, file.toUri());
+            boolean completed = false;
+            try {
+                long start = System.nanoTime();
+                Iterable<? extends CompilationUnitTree> parsed = task.parse();
+                if (retainedPosition >= 0) {
+                    MethodBodyPruner pruner = new MethodBodyPruner(retainedPosition);
+                    parsed.forEach(unit -> pruner.translate((JCTree.JCCompilationUnit) unit));
+                }
+                long parsedTime = System.nanoTime();
+                cancellationCheck.run();
+
+                task.enterTrees(parsed);
+                long enteredTime = System.nanoTime();
+                cancellationCheck.run();
+
+                Iterable<? extends Element> analyzed = task.analyze();
+                long analyzedTime = System.nanoTime();
+                cancellationCheck.run();
+
+                AnalysisTimings timings = new AnalysisTimings(parsedTime - start, enteredTime - parsedTime, analyzedTime - enteredTime);
+                Analysis analysis = new Analysis(task, parsed.iterator().next(), analyzed, retainedPosition >= 0, timings);
+                retained = new Retained(file, contents, retainedPosition, analysis,
+                        List.copyOf(collector.getDiagnostics()), javacContext, reusableContext);
+                completed = true;
+            } catch (RuntimeException e) {
+                CancellationException cancellation = CancelService.findCancellation(e);
+                if (cancellation == null) {
+                    throw e;
+                }
+                // clearing a context whose compiler never started would create its components
+                // without a file manager, a context aborted within a body or a source path class
+                // may hold half completed symbols
+                completed = cancelService.isCompilerStarted() && !cancelService.isAbortedUnsafely();
+                throw cancellation;
+            } finally {
+                cancelService.end();
+                fileManager.clearCompletingFile();
+                if (retained == null) {
+                    releaseContext(reusableContext, completed);
+                }
+            }
+            return consume(retained, retained.analysis(), cancellationCheck, consumer);
+        }
+    }
+
+    private <T> T consume(Retained retained, Analysis analysis, Runnable cancellationCheck, Function<Analysis, T> consumer) {
+        CancelService cancelService = CancelService.instance(retained.javacContext());
+        fileManager.setCompletingFile(retained.file(), retained.contents());
+        cancelService.begin(cancellationCheck, retained.file().toUri());
+        try {
+            return consumer.apply(analysis);
+        } catch (RuntimeException e) {
+            CancellationException cancellation = CancelService.findCancellation(e);
+            if (cancellation != null) {
+                if (cancelService.isAbortedUnsafely()) {
+                    evict(false);
+                }
+                throw cancellation;
+            }
+            // the consumer may have left the task in an unknown state
+            evict(false);
+            throw e;
+        } finally {
+            cancelService.end();
+            fileManager.clearCompletingFile();
+        }
+    }
+
+    /**
+     * Drops the retained analysis if it belongs to the given file.
+     */
+    public void invalidate(Path file) {
+        synchronized (lock) {
+            if (retained != null && retained.file().equals(file)) {
+                evict(true);
+            }
+        }
+    }
+
+    /**
+     * Drops the retained analysis.
+     */
+    public void invalidateAll() {
+        synchronized (lock) {
+            evict(true);
+        }
+    }
+
+    private void evict(boolean completed) {
+        if (retained == null) {
+            return;
+        }
+        ReusableContext reusableContext = retained.reusableContext();
+        retained = null;
+        releaseContext(reusableContext, completed);
+    }
+
+    private ReusableContext acquireContext(Path file) {
+        analysisCount++;
+        if (context != null) {
+            if (fileManager.isSourcePathUpToDate() && !fileManager.isLoadedFromSourcePath(file)) {
+                reuseCount++;
+                return context;
+            }
+            logger.debug("Source path of {} changed, discarding javac context", module.getName());
+            context = null;
+        }
+
+        fileManager.resetSourcePathState();
+        context = ReusableContext.create(options);
+        return context;
+    }
+
+    /**
+     * @param completed whether the run finished or was cancelled at a point where javac does not
+     *                  leave half completed symbols behind
+     */
+    private void releaseContext(ReusableContext reusableContext, boolean completed) {
+        if (reusableContext == null) {
+            return;
+        }
+
+        try {
+            reusableContext.clear();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to clear javac context", e);
+            context = null;
+            return;
+        }
+
+        // a task that failed may have left symbols half completed
+        if (!completed || reusableContext.isPolluted()) {
+            context = null;
+            return;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Analyzed {} files in {}, reused javac context {} times, reused an analysis {} times",
+                    analysisCount, module.getName(), reuseCount, retainedHitCount);
+        }
+    }
+
+    /**
+     * The analysis of a single file.
+     *
+     * @param partial whether only the member around a position has been attributed
+     * @param timings how long javac took, {@link AnalysisTimings#RETAINED} when the analysis is
+     *                served from the retained analysis
+     */
+    public record Analysis(JavacTaskImpl task,
+                           CompilationUnitTree unit,
+                           Iterable<? extends Element> analyzed,
+                           boolean partial,
+                           AnalysisTimings timings) {
+
+        Analysis withTimings(AnalysisTimings timings) {
+            return new Analysis(task, unit, analyzed, partial, timings);
+        }
+    }
+
+    /**
+     * A completed analysis kept alive together with the context it was created on.
+     */
+    private record Retained(Path file,
+                            String contents,
+                            int retainedPosition,
+                            Analysis analysis,
+                            List<Diagnostic<? extends JavaFileObject>> diagnostics,
+                            Context javacContext,
+                            ReusableContext reusableContext) {
+
+        boolean matches(Path file, String contents, int retainedPosition) {
+            return this.file.equals(file)
+                    && (!analysis.partial() || this.retainedPosition == retainedPosition)
+                    && this.contents.hashCode() == contents.hashCode()
+                    && this.contents.equals(contents);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.tyron.code.java.analysis;
+
+/**
+ * How long javac took for each phase of an analysis.
+ *
+ * @param parseNanos parsing the file, including pruning the member bodies of a partial analysis
+ * @param enterNanos entering the parsed trees
+ * @param attributeNanos attributing and flow analyzing the file
+ */
+public record AnalysisTimings(long parseNanos, long enterNanos, long attributeNanos) {
+
+    /** The timings of an analysis served from a retained analysis, which did not run javac. */
+    public static final AnalysisTimings RETAINED = new AnalysisTimings(0, 0, 0);
+}
@@ -1,174 +1,231 @@
 package com.tyron.code.java.analysis;
 
-import com.tyron.code.java.ModuleFileManager;
-import com.tyron.code.logging.Logging;
+import com.tyron.code.diagnostic.FileDiagnostics;
+import com.tyron.code.java.analysis.AnalysisScheduler.Priority;
 import com.tyron.code.project.file.FileManager;
-import com.tyron.code.project.file.FileSnapshot;
 import com.tyron.code.project.model.module.JavaModule;
-import org.slf4j.Logger;
-import shadow.com.sun.source.tree.CompilationUnitTree;
-import shadow.com.sun.tools.javac.api.JavacTaskImpl;
-import shadow.com.sun.tools.javac.api.JavacTool;
-import shadow.com.sun.tools.javac.util.Context;
-import shadow.javax.lang.model.element.Element;
-import shadow.javax.tools.Diagnostic;
+import com.tyron.code.project.util.LatencyHistogram;
 import shadow.javax.tools.DiagnosticCollector;
+import shadow.javax.tools.DiagnosticListener;
 import shadow.javax.tools.JavaFileObject;
 
-import java.io.PrintWriter;
-import java.io.Writer;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
-import java.util.concurrent.FutureTask;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
-public class Analyzer {
-    private static final Logger logger = Logging.get(Analyzer.class);
+public class Analyzer implements AutoCloseable {
 
-    private static final JavacTool SYSTEM_PROVIDER = JavacTool.create();
+    private static final DiagnosticListener<JavaFileObject> IGNORE_DIAGNOSTICS = diagnostic -> {};
 
-    private final Object lock = new Object();
-    private final AtomicBoolean cancelled = new AtomicBoolean(false);
-    private volatile FutureTask<AnalysisResult> currentTask;
+    private final AnalysisScheduler scheduler = new AnalysisScheduler();
 
     private final JavaModule projectModule;
-    private final ModuleFileManager moduleFileManager;
+    private final AnalysisSession session;
 
-    private final DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+    private final Map<Path, FileDiagnostics> publishedDiagnostics = new HashMap<>();
+    private final List<Consumer<FileDiagnostics.Delta>> diagnosticsListeners = new CopyOnWriteArrayList<>();
+
+    private boolean closed;
 
     public Analyzer(FileManager fileManager, JavaModule projectModule) {
         this.projectModule = projectModule;
-        moduleFileManager = new ModuleFileManager(fileManager, projectModule);
+        session = AnalysisSession.acquire(fileManager, projectModule);
     }
 
-    public synchronized void analyze(Path path, String contents, Consumer<AnalysisResult> consumer) {
-        analyzeInternal(path, contents, consumer);
+    /**
+     * @return the module the files are analyzed in
+     */
+    public JavaModule getModule() {
+        return projectModule;
     }
 
-    private void analyzeInternal(Path path, String contents, Consumer<AnalysisResult> consumer) {
-        if (currentTask != null && !currentTask.isDone()) {
-            cancelled.set(true);
-            try {
-                currentTask.cancel(true);
-                currentTask.get(); // Wait for completion before starting new
+    /**
+     * Analyzes the file with {@link Priority#INTERACTIVE} priority and passes the result to
+     * {@code consumer} on the analyzer thread.
+     *
+     * @see #submit(Priority, Path, String, Function)
+     */
+    public CompletableFuture<Void> analyze(Path path, String contents, Consumer<AnalysisResult> consumer) {
+        return submit(Priority.INTERACTIVE, path, contents, result -> {
+            consumer.accept(result);
+            return null;
+        });
+    }
 
-                currentTask = null;
-            } catch (Exception e) {
-                handleCancellationException(e);
-            } finally {
-                cancelled.set(false);
-            }
-        }
+    /**
+     * Queues an analysis of the given file contents without waiting for it.
+     *
+     * <p>{@code function} runs on the analyzer thread while the javac task of the result is
+     * valid, the objects obtained from the result must not escape it. The returned future is
+     * cancelled when a newer request of the same priority supersedes this one.
+     */
+    public <T> CompletableFuture<T> submit(Priority priority, Path path, String contents, Function<AnalysisResult, T> function) {
+        return scheduler.submit(priority, new AnalyzeCallable<>(projectModule, path, contents, -1, -1, function));
+    }
 
-        currentTask = new FutureTask<>(new AnalyzeCallable(projectModule, path, contents, consumer));
-        Thread thread = new Thread(currentTask, "Analyzer");
-        thread.setUncaughtExceptionHandler((t, e) -> {
-            if (e instanceof CancellationException) {
-                return;
-            }
-            logger.error("Error in analyzer thread", e);
-        });
-        thread.start();
+    /**
+     * Queues a {@link Priority#BACKGROUND} analysis that reports the diagnostics of the file.
+     *
+     * <p>The diagnostics are published as the set of {@code version} unless a newer version of
+     * the file has been published already, listeners registered through
+     * {@link #addDiagnosticsListener(Consumer)} receive the difference to the previous set.
+     * Superseded requests publish nothing.
+     *
+     * @param contents the contents to analyze, such as the immutable content of a snapshot. It is
+     *                 only copied into a string on the analyzer thread, when the request runs
+     * @param version the snapshot version of {@code contents}
+     * @return a future completed with the latest published diagnostics of the file
+     */
+    public CompletableFuture<FileDiagnostics> submitDiagnostics(Path path, CharSequence contents, long version) {
+        return scheduler.submit(Priority.BACKGROUND, new AnalyzeCallable<>(projectModule, path, contents, -1, version, result -> getDiagnostics(path)));
     }
 
-    private void handleCancellationException(Exception e) {
-        if (e instanceof CancellationException || (e.getCause() instanceof CancellationException)) {
-            throw new CancellationException();
-        }
-        throw new RuntimeException(e.getCause());
-    }
-
-    private JavacTaskImpl getJavacTask(Path path, String contents, Context context, JavaModule projectModule, DiagnosticCollector<JavaFileObject> collector) {
-        return (JavacTaskImpl) SYSTEM_PROVIDER.getTask(
-                new PrintWriter(Writer.nullWriter()),
-                moduleFileManager,
-                collector,
-                List.of(
-                        "-XDide",
-                        "-XDcompilePolicy=byfile",
-                        "-XD-Xprefer=source",
-                        "-XDkeepCommentsOverride=ignore",
-                        "-XDsuppressAbortOnBadClassFile",
-                        "-XDshould-stop.at=GENERATE",
-                        "-XDdiags.formatterOptions=-source",
-                        "-XDdiags.layout=%L%m|%L%m|%L%m",
-                        "-g:source",
-                        "-g:lines",
-                        "-g:vars",
-                        "-bootclasspath",
-                        projectModule.getJdkModule().getPath().toString(),
-                        "-XDbreakDocCommentParsingOnError=false",
-                        "-Xlint:cast",
-                        "-Xlint:deprecation",
-                        "-Xlint:empty",
-                        "-Xlint:fallthrough",
-                        "-Xlint:finally",
-                        "-Xlint:path",
-                        "-Xlint:unchecked",
-                        "-Xlint:varargs",
-                        "-Xlint:static"
-                ),
-                null,
-                List.of(FileSnapshot.create(path.toUri(), contents)),
-                context
-        );
-    }
-
-    private class AnalyzeCallable implements Callable<AnalysisResult> {
+    /**
+     * Like {@link #submit(Priority, Path, String, Function)}, but only attributes the class
+     * skeleton and the method, initializer or lambda body that contains {@code position}. The
+     * bodies of the other members are pruned before attribution, so the cost of the analysis
+     * depends on the size of the enclosing member rather than on the size of the file.
+     *
+     * <p>Meant for requests that only look at the code around a position, such as completion.
+     * Diagnostics of such an analysis are incomplete and are not collected. A retained full
+     * analysis of the same contents is used as is, see {@link AnalysisResult#partial()}.
+     */
+    public <T> CompletableFuture<T> submitPartial(Priority priority, Path path, String contents, int position, Function<AnalysisResult, T> function) {
+        return scheduler.submit(priority, new AnalyzeCallable<>(projectModule, path, contents, position, -1, function));
+    }
+
+    /**
+     * Sets how long requests of the given priority wait for a newer request before they run.
+     */
+    public void setDebounce(Priority priority, Duration delay) {
+        scheduler.setDebounce(priority, delay);
+    }
+
+    private class AnalyzeCallable<T> implements Callable<T> {
         private final JavaModule javaProject;
         private final Path file;
-        private final String contents;
-        private final Consumer<AnalysisResult> consumer;
+        private final CharSequence contents;
+        private final int retainedPosition;
+        private final long version;
+        private final Function<AnalysisResult, T> function;
 
-        public AnalyzeCallable(JavaModule projectModule, Path file, String contents, Consumer<AnalysisResult> consumer) {
+        public AnalyzeCallable(JavaModule projectModule, Path file, CharSequence contents, int retainedPosition, long version, Function<AnalysisResult, T> function) {
             this.javaProject = projectModule;
             this.file = file;
             this.contents = contents;
-            this.consumer = consumer;
+            this.retainedPosition = retainedPosition;
+            this.version = version;
+            this.function = function;
+        }
+
+        private boolean isPartial() {
+            return retainedPosition >= 0;
         }
 
         @Override
-        public AnalysisResult call() throws Exception {
-            Context context = new Context();
-            JavacTaskImpl javacTask = getJavacTask(file, contents, context, javaProject, collector);
+        public T call() throws Exception {
+            DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+            DiagnosticListener<? super JavaFileObject> diagnosticListener = isPartial() || version < 0 ? IGNORE_DIAGNOSTICS : collector;
+            return session.analyze(file, contents.toString(), retainedPosition, diagnosticListener, Analyzer.this::checkCancelled, analysis -> {
+                if (diagnosticListener == collector) {
+                    publishDiagnostics(new FileDiagnostics(file, version, collector.getDiagnostics().stream()
+                            .filter(it -> it.getSource() != null && it.getSource().toUri().equals(file.toUri()))
+                            .map(com.tyron.code.diagnostic.Diagnostic::from)
+                            .toList()));
+                }
 
-            moduleFileManager.setCompletingFile(file, contents);
-            try {
-                synchronized (lock) {
-                    checkCancelled();
+                AnalysisResult analysisResult = new AnalysisResult(javaProject, analysis.task(), analysis.unit(), analysis.analyzed(), Analyzer.this, analysis.partial(), session.getClassPathGeneration(), analysis.timings());
+                return function.apply(analysisResult);
+            });
+        }
+    }
 
-                    Iterable<? extends CompilationUnitTree> parsed = javacTask.parse();
-                    checkCancelled();
+    /**
+     * Cancels the running analysis and drops the pending ones.
+     */
+    public void cancel() {
+        scheduler.cancelAll();
+    }
 
-                    Iterable<? extends Element> elements = javacTask.enterTrees(parsed);
-                    checkCancelled();
+    /**
+     * Throws a {@link CancellationException} when the analysis running on the calling thread has
+     * been superseded. javac calls it before attributing each method and block of the analyzed
+     * file, completion actions should call it between units of work.
+     */
+    public void checkCancelled() {
+        scheduler.checkCancelled();
+    }
 
-                    Iterable<? extends Element> analyzed = javacTask.analyze();
+    /**
+     * Drops the analysis of the file retained for repeated requests, see
+     * {@link AnalysisSession#analyze}.
+     */
+    public void invalidate(Path file) {
+        session.invalidate(file);
+    }
 
-                    AnalysisResult analysisResult = new AnalysisResult(javaProject, javacTask, parsed.iterator().next(), analyzed, Analyzer.this);
-                    consumer.accept(analysisResult);
-                    return analysisResult;
-                }
-            } finally {
-                moduleFileManager.setCompletingFile(null, null);
-            }
+    /**
+     * @return how long analyses took to stop after they were superseded or cancelled
+     */
+    public LatencyHistogram getCancellationLatency() {
+        return scheduler.getCancellationLatency();
+    }
+
+    /**
+     * Stops accepting requests and releases the shared analysis session of the module once the
+     * running analysis has unwound. Does not wait for it. Requests submitted afterwards are
+     * cancelled.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
         }
+        closed = true;
+        scheduler.shutdown(session::release);
     }
 
-    public void cancel() {
-        cancelled.set(true);
+    private void publishDiagnostics(FileDiagnostics diagnostics) {
+        synchronized (publishedDiagnostics) {
+            FileDiagnostics previous = publishedDiagnostics.getOrDefault(diagnostics.file(), FileDiagnostics.empty(diagnostics.file()));
+            if (previous.version() > diagnostics.version()) {
+                return;
+            }
+            publishedDiagnostics.put(diagnostics.file(), diagnostics);
+
+            FileDiagnostics.Delta delta = diagnostics.delta(previous);
+            if (!delta.isEmpty()) {
+                diagnosticsListeners.forEach(listener -> listener.accept(delta));
+            }
+        }
     }
 
-    public void checkCancelled() {
-        if (cancelled.get() || Thread.interrupted()) {
-            throw new CancellationException();
+    /**
+     * @return the latest diagnostics published for the file by {@link #submitDiagnostics}
+     */
+    public FileDiagnostics getDiagnostics(Path file) {
+        synchronized (publishedDiagnostics) {
+            return publishedDiagnostics.getOrDefault(file, FileDiagnostics.empty(file));
         }
     }
 
-    public List<com.tyron.code.diagnostic.Diagnostic> getDiagnostics() {
-        return collector.getDiagnostics().stream().map(com.tyron.code.diagnostic.Diagnostic::from).toList();
+    /**
+     * Adds a listener notified on the analyzer thread whenever the published diagnostics of a
+     * file change.
+     */
+    public void addDiagnosticsListener(Consumer<FileDiagnostics.Delta> listener) {
+        diagnosticsListeners.add(listener);
+    }
+
+    public void removeDiagnosticsListener(Consumer<FileDiagnostics.Delta> listener) {
+        diagnosticsListeners.remove(listener);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+package com.tyron.code.java.analysis;
+
+import shadow.com.sun.source.util.TaskEvent;
+import shadow.com.sun.source.util.TaskListener;
+import shadow.com.sun.tools.javac.util.Context;
+import shadow.com.sun.tools.javac.util.PropagatedException;
+import shadow.javax.tools.JavaFileObject;
+
+import java.net.URI;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Lets javac abort an analysis that has been cancelled.
+ *
+ * <p>The service lives in the javac {@link Context} next to {@link CancellableAttr}, which consults
+ * it before attributing each method and block. Added as a task listener, it is also consulted
+ * whenever javac starts parsing, entering or analyzing a file or class. A superseded analysis
+ * therefore stops within one method body instead of attributing the rest of the file.
+ *
+ * <p>Only some of these points leave the context in a state it can be reused in: the start of a
+ * task event of the analyzed file and the start of a method of the analyzed file that is not nested
+ * in another body. Elsewhere javac may be completing a class from the source path or attributing
+ * speculatively, with half completed symbols and pushed diagnostic handlers. A run aborted there
+ * reports it through {@link #isAbortedUnsafely()} so the context is discarded.
+ *
+ * <p>javac swallows most exceptions thrown while it attributes, the cancellation is thrown as a
+ * {@link PropagatedException} so it reaches the caller of the task. Task listener exceptions are
+ * wrapped by javac, callers should look for the {@link CancellationException} among the causes.
+ */
+class CancelService implements TaskListener {
+    private static final Context.Key<CancelService> cancelServiceKey = new Context.Key<>();
+
+    private static final Runnable NOT_CANCELLABLE = () -> {};
+
+    /**
+     * Returns the service of the context, registering it and {@link CancellableAttr} on first use.
+     * Must be called before the context creates its {@code Attr}.
+     */
+    static CancelService instance(Context context) {
+        CancelService service = context.get(cancelServiceKey);
+        if (service == null) {
+            service = new CancelService();
+            context.put(cancelServiceKey, service);
+            CancellableAttr.preRegister(context);
+        }
+        return service;
+    }
+
+    private volatile Runnable check = NOT_CANCELLABLE;
+    private URI analyzedFile;
+    private boolean compilerStarted;
+    private boolean abortedUnsafely;
+
+    private CancelService() {
+    }
+
+    /**
+     * @param check throws a {@link CancellationException} once the current run is cancelled
+     * @param analyzedFile the file analyzed by the run, {@code null} if the run does not analyze
+     *                     a file
+     */
+    void begin(Runnable check, URI analyzedFile) {
+        this.check = check;
+        this.analyzedFile = analyzedFile;
+        this.compilerStarted = false;
+        this.abortedUnsafely = false;
+    }
+
+    void end() {
+        this.check = NOT_CANCELLABLE;
+        this.analyzedFile = null;
+    }
+
+    /**
+     * @param safePoint whether javac keeps no half completed state at this point, see the class
+     *                  documentation
+     */
+    void abortIfCancelled(boolean safePoint) {
+        try {
+            check.run();
+        } catch (CancellationException e) {
+            abortedUnsafely = !safePoint;
+            throw new PropagatedException(e);
+        }
+    }
+
+    /**
+     * @return whether {@code file} is the file analyzed by the current run
+     */
+    boolean isAnalyzedFile(JavaFileObject file) {
+        return file != null && analyzedFile != null && analyzedFile.equals(file.toUri());
+    }
+
+    /**
+     * @return whether javac started a compile phase since {@link #begin}
+     */
+    boolean isCompilerStarted() {
+        return compilerStarted;
+    }
+
+    /**
+     * @return whether the current run was aborted at a point where javac may have left half
+     * completed state in the context
+     */
+    boolean isAbortedUnsafely() {
+        return abortedUnsafely;
+    }
+
+    @Override
+    public void started(TaskEvent e) {
+        compilerStarted = true;
+        // events of other files are fired while javac completes classes from the source path
+        abortIfCancelled(isAnalyzedFile(e.getSourceFile()));
+    }
+
+    /**
+     * @return the {@link CancellationException} that aborted a run, or {@code null} if
+     * {@code throwable} is not caused by a cancellation
+     */
+    static CancellationException findCancellation(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof CancellationException cancellation) {
+                return cancellation;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.tyron.code.java.analysis;
+
+import shadow.com.sun.tools.javac.comp.Attr;
+import shadow.com.sun.tools.javac.tree.JCTree;
+import shadow.com.sun.tools.javac.util.Context;
+
+/**
+ * {@link Attr} that checks the {@link CancelService} of its context before attributing a method or
+ * a block, which covers method bodies, initializers and lambda bodies.
+ *
+ * <p>Attribution state is saved and restored around each method of a class, so aborting before a
+ * method of the analyzed file that is not nested in another body leaves the shared symbols intact
+ * and the context can be reused. Within a body javac may be attributing speculatively, aborting
+ * there discards the context.
+ */
+class CancellableAttr extends Attr {
+
+    static void preRegister(Context context) {
+        context.put(attrKey, (Context.Factory<Attr>) CancellableAttr::new);
+    }
+
+    private final CancelService cancelService;
+    /** The number of method bodies, lambdas, blocks and variable initializers being attributed. */
+    private int bodyDepth;
+
+    private CancellableAttr(Context context) {
+        super(context);
+        cancelService = CancelService.instance(context);
+    }
+
+    @Override
+    public void visitMethodDef(JCTree.JCMethodDecl tree) {
+        cancelService.abortIfCancelled(bodyDepth == 0
+                && tree.sym != null
+                && cancelService.isAnalyzedFile(tree.sym.enclClass().sourcefile));
+        bodyDepth++;
+        try {
+            super.visitMethodDef(tree);
+        } finally {
+            bodyDepth--;
+        }
+    }
+
+    @Override
+    public void visitBlock(JCTree.JCBlock tree) {
+        cancelService.abortIfCancelled(false);
+        bodyDepth++;
+        try {
+            super.visitBlock(tree);
+        } finally {
+            bodyDepth--;
+        }
+    }
+
+    @Override
+    public void visitLambda(JCTree.JCLambda tree) {
+        bodyDepth++;
+        try {
+            super.visitLambda(tree);
+        } finally {
+            bodyDepth--;
+        }
+    }
+
+    @Override
+    public void visitVarDef(JCTree.JCVariableDecl tree) {
+        bodyDepth++;
+        try {
+            super.visitVarDef(tree);
+        } finally {
+            bodyDepth--;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.tyron.code.java.analysis;
+
+import com.tyron.code.logging.Logging;
+import org.slf4j.Logger;
+import shadow.com.sun.source.util.TaskListener;
+import shadow.com.sun.tools.javac.util.Context;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Handle to javac's {@code JavacTaskPool.ReusableContext}.
+ *
+ * <p>The reusable context keeps the symbol table, class reader caches and completed platform
+ * classes alive between compilations. After a compilation, {@link #clear()} drops the per task
+ * state and removes the classes declared by the compiled units from the symbol table so the
+ * context can be handed to the next task. The class is package private in javac, so it is
+ * accessed reflectively; when that fails the caller is expected to fall back to a plain
+ * {@link Context}.
+ */
+final class ReusableContext {
+    private static final Logger logger = Logging.get(ReusableContext.class);
+
+    private static final Constructor<?> CONSTRUCTOR;
+    private static final Method CLEAR;
+    private static final Field POLLUTED;
+
+    static {
+        Constructor<?> constructor = null;
+        Method clear = null;
+        Field polluted = null;
+        try {
+            Class<?> type = Class.forName("shadow.com.sun.tools.javac.api.JavacTaskPool$ReusableContext");
+            constructor = type.getDeclaredConstructor(List.class);
+            constructor.setAccessible(true);
+            clear = type.getDeclaredMethod("clear");
+            clear.setAccessible(true);
+            polluted = type.getDeclaredField("polluted");
+            polluted.setAccessible(true);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Reusable javac contexts are not available, every analysis will start cold", e);
+            constructor = null;
+        }
+        CONSTRUCTOR = constructor;
+        CLEAR = clear;
+        POLLUTED = polluted;
+    }
+
+    private final Context context;
+
+    private ReusableContext(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * @return a new reusable context for the given compiler options, or {@code null} if the
+     * running javac does not provide one
+     */
+    static ReusableContext create(List<String> options) {
+        if (CONSTRUCTOR == null) {
+            return null;
+        }
+        try {
+            return new ReusableContext((Context) CONSTRUCTOR.newInstance(options));
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Failed to create reusable javac context", e);
+            return null;
+        }
+    }
+
+    Context get() {
+        return context;
+    }
+
+    /**
+     * The context tracks the compilation units of a task through task events, it must be
+     * registered on every task created from it.
+     */
+    TaskListener taskListener() {
+        return (TaskListener) context;
+    }
+
+    /**
+     * Prepares the context for the next task.
+     */
+    void clear() {
+        try {
+            CLEAR.invoke(context);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return whether the last task left state behind that {@link #clear()} could not undo, in
+     * which case the context must not be reused
+     */
+    boolean isPolluted() {
+        try {
+            return POLLUTED.getBoolean(context);
+        } catch (IllegalAccessException e) {
+            return true;
+        }
+    }
+}
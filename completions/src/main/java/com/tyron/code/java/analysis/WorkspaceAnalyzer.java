@@ -0,0 +1,291 @@
+package com.tyron.code.java.analysis;
+
+import com.tyron.code.diagnostic.Diagnostic;
+import com.tyron.code.diagnostic.FileDiagnostics;
+import com.tyron.code.info.SourceClassInfo;
+import com.tyron.code.java.ModuleFileManager;
+import com.tyron.code.logging.Logging;
+import com.tyron.code.project.file.FileManager;
+import com.tyron.code.project.file.FileSnapshot;
+import com.tyron.code.project.model.module.JavaModule;
+import com.tyron.code.project.model.module.Module;
+import com.tyron.code.project.model.module.RootModule;
+import com.tyron.code.project.util.ThreadPoolFactory;
+import org.slf4j.Logger;
+import shadow.com.sun.source.tree.CompilationUnitTree;
+import shadow.com.sun.source.tree.Tree;
+import shadow.com.sun.tools.javac.api.JavacTaskImpl;
+import shadow.com.sun.tools.javac.api.JavacTool;
+import shadow.com.sun.tools.javac.tree.JCTree;
+import shadow.com.sun.tools.javac.util.Context;
+import shadow.javax.lang.model.element.TypeElement;
+import shadow.javax.tools.DiagnosticListener;
+import shadow.javax.tools.JavaFileObject;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Analyzes every Java module of a workspace and reports the diagnostics of each source file.
+ *
+ * <p>Modules are analyzed in the order of their compile dependencies: a module starts once the
+ * included modules it depends on are done, modules that do not depend on each other run in
+ * parallel on a fork join pool. Each module is parsed and entered as a single batch on its own
+ * javac context and file manager, so nothing is shared between the workers.
+ *
+ * <p>Unlike {@link Analyzer}, which attributes a single file against the signatures of the rest of
+ * its module, every source file of a module is fully attributed here. Files are attributed and
+ * flow analyzed one at a time, the diagnostics of a file are reported as soon as it is done
+ * rather than when the whole module is.
+ */
+public class WorkspaceAnalyzer implements AutoCloseable {
+    private static final Logger logger = Logging.get(WorkspaceAnalyzer.class);
+
+    private static final JavacTool SYSTEM_PROVIDER = JavacTool.create();
+
+    private final FileManager fileManager;
+    private final ForkJoinPool pool;
+
+    public WorkspaceAnalyzer(FileManager fileManager) {
+        this(fileManager, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism the maximum number of modules analyzed at the same time
+     */
+    public WorkspaceAnalyzer(FileManager fileManager, int parallelism) {
+        this.fileManager = fileManager;
+        this.pool = ThreadPoolFactory.newForkJoinPool("Workspace Analyzer", parallelism);
+    }
+
+    /**
+     * Analyzes the Java modules included in {@code root}.
+     *
+     * <p>Cancelling the returned future stops the modules being analyzed before they attribute
+     * their next method and skips the modules that have not started yet.
+     *
+     * @param consumer receives the diagnostics of each file once it has been analyzed, called from
+     *                 the worker threads
+     * @return a future completed with the diagnostics of every analyzed file once all modules are
+     * done, or completed exceptionally with the failure of a module
+     */
+    public CompletableFuture<Map<Path, FileDiagnostics>> analyzeAll(RootModule root, Consumer<FileDiagnostics> consumer) {
+        Set<JavaModule> included = new HashSet<>();
+        for (Module module : root.getIncludedModules()) {
+            if (module instanceof JavaModule javaModule) {
+                included.add(javaModule);
+            }
+        }
+
+        Map<Path, FileDiagnostics> results = new ConcurrentHashMap<>();
+        CompletableFuture<Map<Path, FileDiagnostics>> analysis = new CompletableFuture<>();
+        Batch batch = new Batch(analysis, diagnostics -> {
+            results.put(diagnostics.file(), diagnostics);
+            consumer.accept(diagnostics);
+        });
+
+        Map<JavaModule, CompletableFuture<Void>> scheduled = new HashMap<>();
+        for (JavaModule module : included) {
+            schedule(module, included, scheduled, new HashSet<>(), batch);
+        }
+
+        CompletableFuture.allOf(scheduled.values().toArray(CompletableFuture[]::new)).whenComplete((ignored, e) -> {
+            if (e != null) {
+                analysis.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+            } else {
+                analysis.complete(Map.copyOf(results));
+            }
+        });
+        return analysis;
+    }
+
+    private CompletableFuture<Void> schedule(JavaModule module,
+                                             Set<JavaModule> included,
+                                             Map<JavaModule, CompletableFuture<Void>> scheduled,
+                                             Set<JavaModule> visiting,
+                                             Batch batch) {
+        CompletableFuture<Void> existing = scheduled.get(module);
+        if (existing != null) {
+            return existing;
+        }
+        if (!visiting.add(module)) {
+            logger.warn("Module {} depends on itself, analyzing it without waiting for its dependencies", module.getName());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        for (Module dependency : module.getCompileOnlyDependencies()) {
+            if (dependency instanceof JavaModule javaModule && included.contains(javaModule)) {
+                dependencies.add(schedule(javaModule, included, scheduled, visiting, batch));
+            }
+        }
+        visiting.remove(module);
+
+        // a failed dependency is reported on its own future, its dependents are still analyzed
+        CompletableFuture<Void> future = CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new))
+                .handle((ignored, e) -> null)
+                .thenRunAsync(() -> analyzeModule(module, batch), pool);
+        scheduled.put(module, future);
+        return future;
+    }
+
+    private void analyzeModule(JavaModule module, Batch batch) {
+        if (batch.isCancelled()) {
+            return;
+        }
+
+        Map<URI, SourceFile> sourceFiles = new LinkedHashMap<>();
+        for (SourceClassInfo info : module.getSourceFiles()) {
+            Path path = info.getPath();
+            URI uri = path.toUri();
+            if (sourceFiles.containsKey(uri)) {
+                continue;
+            }
+            Optional<CharSequence> content = fileManager.getFileContent(path);
+            if (content.isEmpty()) {
+                continue;
+            }
+            long version = fileManager.getSnapshotVersion(path).orElse(0L);
+            sourceFiles.put(uri, new SourceFile(path, version, FileSnapshot.create(uri, content.get())));
+        }
+        if (sourceFiles.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ModuleAnalysis moduleAnalysis = new ModuleAnalysis(batch, sourceFiles);
+        try (ModuleFileManager moduleFileManager = new ModuleFileManager(fileManager, module)) {
+            Context context = new Context();
+            CancelService cancelService = CancelService.instance(context);
+            // the context is not reused, every point is safe to abort at
+            cancelService.begin(batch::checkCancelled, null);
+
+            JavacTaskImpl task = (JavacTaskImpl) SYSTEM_PROVIDER.getTask(
+                    new PrintWriter(Writer.nullWriter()),
+                    moduleFileManager,
+                    moduleAnalysis,
+                    AnalysisSession.javacOptions(module),
+                    null,
+                    sourceFiles.values().stream().map(SourceFile::snapshot).toList(),
+                    context
+            );
+            task.addTaskListener(cancelService);
+
+            Iterable<? extends CompilationUnitTree> units = task.parse();
+            task.enterTrees(units);
+            for (CompilationUnitTree unit : units) {
+                List<TypeElement> classes = getTopLevelClasses(unit);
+                if (!classes.isEmpty()) {
+                    task.analyze(classes);
+                }
+                moduleAnalysis.publish(unit.getSourceFile().toUri());
+            }
+            // files without classes, such as package-info.java
+            task.analyze();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            if (CancelService.findCancellation(e) != null) {
+                return;
+            }
+            throw e;
+        }
+
+        moduleAnalysis.publishRemaining();
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Analyzed {} files of {} in {} ms",
+                    sourceFiles.size(), module.getName(), System.currentTimeMillis() - start);
+        }
+    }
+
+    private static List<TypeElement> getTopLevelClasses(CompilationUnitTree unit) {
+        List<TypeElement> classes = new ArrayList<>();
+        for (Tree tree : unit.getTypeDecls()) {
+            if (tree instanceof JCTree.JCClassDecl classDecl && classDecl.sym != null) {
+                classes.add(classDecl.sym);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Stops the worker threads. Modules being analyzed stop before attributing their next method.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private record Batch(CompletableFuture<?> analysis, Consumer<FileDiagnostics> consumer) {
+
+        boolean isCancelled() {
+            return analysis.isDone();
+        }
+
+        void checkCancelled() {
+            if (isCancelled() || Thread.currentThread().isInterrupted()) {
+                throw new CancellationException();
+            }
+        }
+    }
+
+    private record SourceFile(Path path, long version, FileSnapshot snapshot) {
+    }
+
+    /**
+     * Collects the diagnostics of one module by file.
+     */
+    private static class ModuleAnalysis implements DiagnosticListener<JavaFileObject> {
+        private final Batch batch;
+        private final Map<URI, SourceFile> pending;
+        private final Map<URI, List<Diagnostic>> diagnostics = new HashMap<>();
+
+        ModuleAnalysis(Batch batch, Map<URI, SourceFile> sourceFiles) {
+            this.batch = batch;
+            this.pending = new LinkedHashMap<>(sourceFiles);
+        }
+
+        @Override
+        public void report(shadow.javax.tools.Diagnostic<? extends JavaFileObject> diagnostic) {
+            JavaFileObject source = diagnostic.getSource();
+            if (source == null || !pending.containsKey(source.toUri())) {
+                return;
+            }
+            diagnostics.computeIfAbsent(source.toUri(), it -> new ArrayList<>()).add(Diagnostic.from(diagnostic));
+        }
+
+        void publishRemaining() {
+            for (URI uri : List.copyOf(pending.keySet())) {
+                publish(uri);
+            }
+        }
+
+        void publish(URI uri) {
+            SourceFile file = pending.remove(uri);
+            if (file == null) {
+                return;
+            }
+            List<Diagnostic> fileDiagnostics = diagnostics.getOrDefault(uri, List.of());
+            batch.consumer().accept(new FileDiagnostics(file.path(), file.version(), fileDiagnostics));
+        }
+    }
+}
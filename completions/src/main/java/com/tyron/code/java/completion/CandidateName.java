@@ -0,0 +1,70 @@
+package com.tyron.code.java.completion;
+
+import com.tyron.code.project.util.CamelHumps;
+
+/**
+ * The name of a completion candidate prepared for matching: the lowercase characters of the name
+ * and where its words start, see {@link CamelHumps}. It is computed once per candidate, so matching
+ * the candidate against each prefix typed afterwards does not allocate.
+ */
+public final class CandidateName implements CamelHumps.Name {
+
+    private static final CandidateName EMPTY = new CandidateName("");
+
+    private final String name;
+    private final char[] lowerCase;
+    /** Bit {@code i} is set if a word starts at index {@code i}, for the first 64 characters. */
+    private final long wordStarts;
+
+    public static CandidateName of(String name) {
+        return name.isEmpty() ? EMPTY : new CandidateName(name);
+    }
+
+    private CandidateName(String name) {
+        this.name = name;
+        this.lowerCase = new char[name.length()];
+        long wordStarts = 0;
+        for (int i = 0; i < name.length(); i++) {
+            lowerCase[i] = Character.toLowerCase(name.charAt(i));
+            if (i < Long.SIZE && CamelHumps.isWordStart(name, i)) {
+                wordStarts |= 1L << i;
+            }
+        }
+        this.wordStarts = wordStarts;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int length() {
+        return lowerCase.length;
+    }
+
+    public boolean isEmpty() {
+        return lowerCase.length == 0;
+    }
+
+    char charAt(int index) {
+        return name.charAt(index);
+    }
+
+    @Override
+    public char lowerCaseCharAt(int index) {
+        return lowerCase[index];
+    }
+
+    @Override
+    public boolean isWordStart(int index) {
+        if (index < Long.SIZE) {
+            return (wordStarts & (1L << index)) != 0;
+        }
+        return CamelHumps.isWordStart(name, index);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
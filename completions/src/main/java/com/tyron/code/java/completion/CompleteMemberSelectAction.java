@@ -28,16 +28,22 @@ import shadow.javax.lang.model.util.Types;
 
 import java.util.*;
 import java.util.function.BinaryOperator;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 public class CompleteMemberSelectAction implements CompletionAction {
 
+    private String usageContext;
 
     @Override
     public ImmutableList<CompletionCandidate> getCompletionCandidates(CompletionArgs args) {
         return getCandidatesImpl(args);
     }
 
+    @Override
+    public String getUsageContext() {
+        return usageContext;
+    }
+
     private ImmutableList<CompletionCandidate> getCandidatesImpl(CompletionArgs args) {
         JavacTaskImpl task = args.analysisResult().javacTask();
         TreePath path = args.currentAnalyzedPath();
@@ -83,9 +89,7 @@ public class CompleteMemberSelectAction implements CompletionAction {
         if (isNonImported) {
             String className = type.toString();
             JavaModule module = args.analysisResult().module();
-            List<ClassInfo> list = ModuleUtils.getAllClasses(module).stream()
-                    .filter(classInfo -> classInfo.getSimpleName().equals(className))
-                    .toList();
+            List<ClassInfo> list = ModuleUtils.findClassesBySimpleName(module, className);
             if (!list.isEmpty()) {
                 ClassInfo classInfo = list.get(0);
                 TypeElement typeElement = task.getElements().getTypeElement(
@@ -125,6 +129,11 @@ public class CompleteMemberSelectAction implements CompletionAction {
             );
             default -> ImmutableList.of();
         };
+        if (type instanceof DeclaredType declaredType) {
+            usageContext = "type:" + ((TypeElement) declaredType.asElement()).getQualifiedName();
+        } else if (type.getKind() == TypeKind.PACKAGE) {
+            usageContext = "package:" + type;
+        }
 
         final var finalElement = element;
 
@@ -152,35 +161,21 @@ public class CompleteMemberSelectAction implements CompletionAction {
     }
 
     private ImmutableList<CompletionCandidate> completePackage(AnalysisResult analysisResult, Scope scope, Type.PackageType type, String prefix) {
-        String packageName = type.toString().replace('.', '/');
-        final String[] packageParts;
-        if (!packageName.contains("/")) {
-            packageParts = new String[]{packageName};
-        } else {
-            packageParts = packageName.split("/");
+        Set<String> classes = new HashSet<>();
+        Set<String> packages = new HashSet<>();
+        for (PackageScope packageScope : ModuleUtils.findPackages(analysisResult.module(), type.toString())) {
+            for (ClassInfo classInfo : packageScope.getFiles()) {
+                classes.add(classInfo.getSimpleName());
+            }
+            for (PackageScope subPackage : packageScope.getSubPackages()) {
+                packages.add(subPackage.getSimpleName());
+            }
         }
 
-        Set<ClassInfo> allClasses = ModuleUtils.getAllClasses(analysisResult.module());
-
-        Set<CompletionCandidate> classes = allClasses.stream()
-                .filter(it -> packageName.equals(it.getPackageName()))
-                .map(it -> new SimpleCompletionCandidate(it.getSimpleName()))
-                .collect(Collectors.toSet());
-
-        Set<CompletionCandidate> packages = allClasses.stream()
-                .filter(it -> it.getPackageName() != null)
-                .filter(it -> it.getPackageName().startsWith(packageName))
-                .map(ClassInfo::getPackageNameParts)
-                .filter(it -> it.length == packageParts.length + 1)
-                .map(it -> it[it.length - 1])
-                .distinct()
-                .map(SimpleCompletionCandidate::new)
-                .collect(Collectors.toSet());
-
-        return ImmutableList.<CompletionCandidate>builder()
-                .addAll(classes)
-                .addAll(packages)
-                .build();
+        ImmutableList.Builder<CompletionCandidate> builder = ImmutableList.builder();
+        classes.forEach(it -> builder.add(new SimpleCompletionCandidate(it)));
+        packages.forEach(it -> builder.add(new SimpleCompletionCandidate(it)));
+        return builder.build();
     }
 
     private ImmutableList<CompletionCandidate> completeArrayMemberSelect(boolean isStatic) {
@@ -217,15 +212,51 @@ public class CompleteMemberSelectAction implements CompletionAction {
 
     private ImmutableList<CompletionCandidate> completeDeclaredTypeMemberSelect(
             AnalysisResult analysisResult, Scope scope, DeclaredType type, boolean isStatic, String partial, boolean endsWithParen) {
+        var list = new ArrayList<CompletionCandidate>();
+        if (MemberCompletionCache.isCacheable(type)) {
+            List<MemberCompletionCache.Member> members = MemberCompletionCache.INSTANCE.get(
+                    analysisResult.classPathGeneration(),
+                    type,
+                    () -> renderMembers(analysisResult, type, endsWithParen)
+            );
+            AccessChecker accessChecker = new AccessChecker(analysisResult.javacTask(), scope, type);
+            CandidateName partialName = CandidateName.of(partial);
+            for (MemberCompletionCache.Member member : members) {
+                if (isStatic && !member.isStatic()) {
+                    continue;
+                }
+                if (!CompletionPrefixMatcher.matchesPartially(member.candidate().getCandidateName(), partialName)) {
+                    continue;
+                }
+                if (accessChecker.isAccessible(member)) {
+                    list.add(member.candidate());
+                }
+            }
+        } else {
+            completeMembers(analysisResult, scope, type, isStatic, partial, endsWithParen, list);
+        }
+
+        if (isStatic) {
+            list.add(KeywordCompletionCandidate.CLASS);
+        }
+
+        if (isStatic && isEnclosingClass(type, scope)) {
+            list.add(KeywordCompletionCandidate.THIS);
+            list.add(KeywordCompletionCandidate.SUPER);
+        }
+        return ImmutableList.copyOf(list);
+    }
+
+    private void completeMembers(AnalysisResult analysisResult, Scope scope, DeclaredType type, boolean isStatic, String partial, boolean endsWithParen, List<CompletionCandidate> list) {
         JavacTaskImpl task = analysisResult.javacTask();
         var trees = Trees.instance(task);
         var typeElement = (TypeElement) type.asElement();
-        var list = new ArrayList<CompletionCandidate>();
         var methods = new HashMap<String, List<ExecutableElement>>();
+        Predicate<CharSequence> partialFilter = CompletionPrefixUtils.partiallyMatching(partial);
 
         task.getElements().getAllMembers(typeElement).stream()
                 .filter(member -> member.getKind() != ElementKind.CONSTRUCTOR)
-                .filter(member -> CompletionPrefixUtils.prefixPartiallyMatch(partial, member.getSimpleName().toString()))
+                .filter(member -> partialFilter.test(member.getSimpleName()))
                 .filter(member -> trees.isAccessible(scope, member, type))
                 .forEach(member -> {
                     if (isStatic) {
@@ -244,16 +275,121 @@ public class CompleteMemberSelectAction implements CompletionAction {
                 .map(overloads -> method(analysisResult, type, overloads, !endsWithParen))
                 .flatMap(Collection::stream)
                 .forEach(list::add);
+    }
 
-        if (isStatic) {
-            list.add(KeywordCompletionCandidate.CLASS);
+    /**
+     * Renders every member of a binary type for {@link MemberCompletionCache}, regardless of the
+     * prefix, the scope and whether the type is accessed statically.
+     */
+    private List<MemberCompletionCache.Member> renderMembers(AnalysisResult analysisResult, DeclaredType type, boolean endsWithParen) {
+        JavacTaskImpl task = analysisResult.javacTask();
+        var elements = task.getElements();
+        var typeElement = (TypeElement) type.asElement();
+        var members = new ArrayList<MemberCompletionCache.Member>();
+        var methods = new LinkedHashMap<String, List<ExecutableElement>>();
+
+        for (Element member : elements.getAllMembers(typeElement)) {
+            if (member.getKind() == ElementKind.CONSTRUCTOR) {
+                continue;
+            }
+            if (member.getKind() == ElementKind.METHOD) {
+                putMethod((ExecutableElement) member, methods);
+            } else {
+                members.add(renderMember(analysisResult, member, new ElementCompletionCandidate(member)));
+            }
         }
+        for (List<ExecutableElement> overloads : methods.values()) {
+            List<CompletionCandidate> candidates = method(analysisResult, type, overloads, !endsWithParen);
+            for (int i = 0; i < overloads.size(); i++) {
+                members.add(renderMember(analysisResult, overloads.get(i), candidates.get(i)));
+            }
+        }
+        return members;
+    }
 
-        if (isStatic && isEnclosingClass(type, scope)) {
-            list.add(KeywordCompletionCandidate.THIS);
-            list.add(KeywordCompletionCandidate.SUPER);
+    private static MemberCompletionCache.Member renderMember(AnalysisResult analysisResult, Element member, CompletionCandidate candidate) {
+        Set<Modifier> modifiers = member.getModifiers();
+        MemberCompletionCache.Access access;
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            access = MemberCompletionCache.Access.PUBLIC;
+        } else if (modifiers.contains(Modifier.PROTECTED)) {
+            access = MemberCompletionCache.Access.PROTECTED;
+        } else if (modifiers.contains(Modifier.PRIVATE)) {
+            access = MemberCompletionCache.Access.PRIVATE;
+        } else {
+            access = MemberCompletionCache.Access.PACKAGE;
+        }
+        TypeElement declaringClass = (TypeElement) member.getEnclosingElement();
+        return new MemberCompletionCache.Member(
+                RenderedCompletionCandidate.of(candidate),
+                modifiers.contains(Modifier.STATIC),
+                access,
+                declaringClass.getQualifiedName().toString(),
+                analysisResult.javacTask().getElements().getPackageOf(declaringClass).getQualifiedName().toString()
+        );
+    }
+
+    /**
+     * Decides whether a cached member of a binary type is accessible from a scope. Private members
+     * of a binary type are never accessible from source, package private members are accessible
+     * from the same package. Protected members are also accessible from a subclass of the declaring
+     * class, instance members only through a qualifier of that subclass.
+     */
+    private static class AccessChecker {
+        private final JavacTaskImpl task;
+        private final Scope scope;
+        private final DeclaredType qualifierType;
+        private final String scopePackage;
+        private final Map<String, Boolean> protectedAccess = new HashMap<>();
+
+        AccessChecker(JavacTaskImpl task, Scope scope, DeclaredType qualifierType) {
+            this.task = task;
+            this.scope = scope;
+            this.qualifierType = qualifierType;
+            TypeElement enclosingClass = scope.getEnclosingClass();
+            this.scopePackage = enclosingClass == null
+                    ? null
+                    : task.getElements().getPackageOf(enclosingClass).getQualifiedName().toString();
+        }
+
+        boolean isAccessible(MemberCompletionCache.Member member) {
+            return switch (member.access()) {
+                case PUBLIC -> true;
+                case PRIVATE -> false;
+                case PACKAGE -> member.declaringPackage().equals(scopePackage);
+                case PROTECTED -> member.declaringPackage().equals(scopePackage)
+                        || protectedAccess.computeIfAbsent(
+                                member.declaringClass() + (member.isStatic() ? "#static" : ""),
+                                it -> isProtectedAccessible(member.declaringClass(), member.isStatic()));
+            };
+        }
+
+        private boolean isProtectedAccessible(String className, boolean isStatic) {
+            TypeElement declaringClass = task.getElements().getTypeElement(className);
+            if (declaringClass == null) {
+                return false;
+            }
+            Types types = task.getTypes();
+            TypeMirror declaringType = types.erasure(declaringClass.asType());
+            TypeMirror qualifier = types.erasure(qualifierType);
+            for (TypeElement c = scope.getEnclosingClass(); c != null; c = enclosingClass(c)) {
+                TypeMirror subclass = types.erasure(c.asType());
+                if (types.isSubtype(subclass, declaringType)
+                        && (isStatic || types.isSubtype(qualifier, subclass))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static TypeElement enclosingClass(TypeElement typeElement) {
+            for (Element e = typeElement.getEnclosingElement(); e != null; e = e.getEnclosingElement()) {
+                if (e instanceof TypeElement enclosing) {
+                    return enclosing;
+                }
+            }
+            return null;
         }
-        return ImmutableList.copyOf(list);
     }
 
     private boolean isEnclosingClass(DeclaredType type, Scope start) {
@@ -1,10 +1,11 @@
 package com.tyron.code.java.completion;
 
 import com.google.common.collect.ImmutableList;
+import com.tyron.code.info.ClassInfo;
+import com.tyron.code.info.ClassNameIndex;
 import com.tyron.code.java.analysis.AnalysisResult;
 import com.tyron.code.project.model.module.JavaModule;
 import com.tyron.code.project.util.ModuleUtils;
-import me.xdrop.fuzzywuzzy.FuzzySearch;
 import shadow.com.sun.source.util.TreePath;
 import shadow.com.sun.source.util.Trees;
 import shadow.javax.lang.model.element.Element;
@@ -14,30 +15,58 @@ import java.util.List;
 
 public class CompleteSymbolAction implements CompletionAction {
 
+    /** Maximum number of classes suggested for a prefix. */
+    private static final int MAX_CLASS_CANDIDATES = 100;
+
+    private boolean incomplete;
 
     @Override
     public ImmutableList<CompletionCandidate> getCompletionCandidates(CompletionArgs args) {
         ImmutableList.Builder<CompletionCandidate> builder = ImmutableList.builder();
         JavaModule module = args.module();
 
-        List<ClassForImportCandidate> list = ModuleUtils.getAllClasses(module).stream()
-                .parallel()
-                .filter(it -> FuzzySearch.partialRatio(args.prefix(), it.getName()) >= 85)
-                .map(it -> new ClassForImportCandidate(String.join(".", it.getPackageNameParts()), it.getSimpleName(), it.getSourceFileName()))
-                .toList();
-        builder.addAll(list);
-
+        List<CompletionCandidate> classes = args.classCandidates() != null
+                ? args.classCandidates()
+                : findClassCandidates(module, args.prefix());
+        incomplete = isIncomplete(classes);
+        builder.addAll(classes);
 
         builder.addAll(completeUsingScope(args.currentAnalyzedPath(), args.analysisResult(), args.prefix()));
         return builder.build();
     }
 
+    @Override
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    /**
+     * Finds the classes matching the prefix in the class name indexes of the module and its
+     * dependencies. Does not need an analysis of the file, the candidates can be shown while the
+     * file is being analyzed.
+     */
+    static List<CompletionCandidate> findClassCandidates(JavaModule module, String prefix) {
+        List<CompletionCandidate> candidates = new ArrayList<>();
+        for (ClassNameIndex.Match<?> match : ModuleUtils.findClasses(module, prefix, MAX_CLASS_CANDIDATES)) {
+            ClassInfo it = match.classInfo();
+            candidates.add(new ClassForImportCandidate(String.join(".", it.getPackageNameParts()), it.getSimpleName(), it.getSourceFileName()));
+        }
+        return candidates;
+    }
+
+    /**
+     * @return whether classes were left out of the result of {@link #findClassCandidates}
+     */
+    static boolean isIncomplete(List<CompletionCandidate> classCandidates) {
+        return classCandidates.size() == MAX_CLASS_CANDIDATES;
+    }
+
     private List<CompletionCandidate> completeUsingScope(TreePath treePath, AnalysisResult analysisResult, String prefix) {
         analysisResult.analyzer().checkCancelled();
         List<CompletionCandidate> list = new ArrayList<>();
         var trees = Trees.instance(analysisResult.javacTask());
         var scope = trees.getScope(treePath);
-        List<Element> elements = ScopeHelper.scopeMembers(analysisResult.javacTask(), scope, it -> it.toString().contains(prefix));
+        List<Element> elements = ScopeHelper.scopeMembers(analysisResult.javacTask(), scope, CompletionPrefixUtils.containing(prefix));
         for (Element element : elements) {
             list.add(new ElementCompletionCandidate(element));
         }
@@ -7,4 +7,20 @@ import com.tyron.code.java.parsing.PositionContext;
 /** Action to perform the requested completion. */
 interface CompletionAction {
     ImmutableList<CompletionCandidate> getCompletionCandidates(CompletionArgs args);
+
+    /**
+     * @return whether the last call to {@link #getCompletionCandidates} left out matching
+     * candidates, in which case the result can not be narrowed down for a longer prefix
+     */
+    default boolean isIncomplete() {
+        return false;
+    }
+
+    /**
+     * @return the context the candidates of the last call to {@link #getCompletionCandidates} were
+     * accepted in, see {@link CompletionUsageModel}, or {@code null} for the module
+     */
+    default String getUsageContext() {
+        return null;
+    }
 }
\ No newline at end of file
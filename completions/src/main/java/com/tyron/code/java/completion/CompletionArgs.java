@@ -5,5 +5,11 @@ import com.tyron.code.java.parsing.PositionContext;
 import com.tyron.code.project.model.module.JavaModule;
 import shadow.com.sun.source.util.TreePath;
 
-public record CompletionArgs(@Deprecated PositionContext positionContext, JavaModule module, TreePath currentAnalyzedPath, AnalysisResult analysisResult, String prefix) {
+import java.util.List;
+
+/**
+ * @param classCandidates the classes matching the prefix found before the analysis, or
+ *                        {@code null} if they have not been looked up
+ */
+public record CompletionArgs(@Deprecated PositionContext positionContext, JavaModule module, TreePath currentAnalyzedPath, AnalysisResult analysisResult, String prefix, List<CompletionCandidate> classCandidates) {
 }
@@ -0,0 +1,121 @@
+package com.tyron.code.java.completion;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The most recent completion results of a {@link Completor}, so moving between completion sites
+ * or editors does not recompute a completion whose site has not changed.
+ *
+ * <p>An entry is keyed by the file and the anchor of the completion, the offset where the
+ * identifier being completed starts, which is right after the dot of a member select. An entry
+ * serves a request while the file is unchanged outside of the completed identifier and the prefix
+ * typed so far extends the prefix of the entry. Any edit before the anchor or after the caret
+ * invalidates it, since it may change the type of the receiver or the scope of the completion.
+ *
+ * <p>Entries remember the snapshot version they were computed at. When the version is unchanged
+ * the contents are not compared. Otherwise the content before the anchor and after the caret is
+ * compared by length and a 64 bit hash, entries do not keep a copy of the content.
+ */
+class CompletionCache {
+
+    static final int DEFAULT_CAPACITY = 8;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private record Key(Path file, int anchor) {
+    }
+
+    private record Entry(CompletionResult result,
+                         String prefix,
+                         long version,
+                         int suffixLength,
+                         long beforeAnchorHash,
+                         long afterCaretHash) {
+    }
+
+    private final Map<Key, Entry> entries;
+
+    CompletionCache(int capacity) {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param anchor the offset where the completed identifier starts
+     * @param caret the offset of the caret, {@code anchor + prefix.length()}
+     * @param version the snapshot version of the content, or a negative number if unknown
+     * @return the cached result that can be narrowed down to {@code prefix}, or {@code null}
+     */
+    synchronized CompletionResult get(Path file, int anchor, int caret, String prefix, long version, CharSequence content) {
+        Key key = new Key(file, anchor);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!isValid(entry, anchor, caret, prefix, version, content)) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.result();
+    }
+
+    synchronized void put(Path file, int anchor, int caret, String prefix, long version, CharSequence content, CompletionResult result) {
+        entries.put(new Key(file, anchor), new Entry(
+                result,
+                prefix,
+                version,
+                content.length() - caret,
+                hash(content, 0, anchor),
+                hash(content, caret, content.length())
+        ));
+    }
+
+    synchronized void invalidate(Path file) {
+        for (Iterator<Key> iterator = entries.keySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().file().equals(file)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static boolean isValid(Entry entry, int anchor, int caret, String prefix, long version, CharSequence content) {
+        if (entry.result().isIncomplete() ? !prefix.equals(entry.prefix()) : !prefix.startsWith(entry.prefix())) {
+            return false;
+        }
+        if (version >= 0 && version == entry.version()) {
+            return true;
+        }
+        if (content.length() - caret != entry.suffixLength()) {
+            return false;
+        }
+        return hash(content, 0, anchor) == entry.beforeAnchorHash()
+                && hash(content, caret, content.length()) == entry.afterCaretHash();
+    }
+
+    /**
+     * FNV-1a over the characters of a region.
+     */
+    private static long hash(CharSequence content, int start, int end) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ content.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
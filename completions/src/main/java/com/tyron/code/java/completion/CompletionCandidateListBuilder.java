@@ -2,23 +2,27 @@ package com.tyron.code.java.completion;
 
 import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class CompletionCandidateListBuilder {
 
-    private final Map<String, CompletionCandidateWithMatchLevel> candidateMap;
+    private final List<CompletionCandidateWithMatchLevel> candidates;
+    private final Set<String> names;
     private final String completionPrefix;
 
     public CompletionCandidateListBuilder(String completionPrefix) {
-        candidateMap = new HashMap<>();
+        candidates = new ArrayList<>();
+        names = new HashSet<>();
         this.completionPrefix = completionPrefix;
     }
 
     public boolean hasCandidateWithName(String name) {
-        return candidateMap.containsKey(name);
+        return names.contains(name);
     }
 
 //    public CompletionCandidateListBuilder addEntities(
@@ -52,12 +56,13 @@ public class CompletionCandidateListBuilder {
 //        if (!candidateMap.containsKey(name)) {
 //            candidateMap.put(name, new EntityShadowingListBuilder<>(GET_ELEMENT_FUNCTION));
 //        }
-        candidateMap.put(name, CompletionCandidateWithMatchLevel.create(candidate, matchLevel));
+        candidates.add(CompletionCandidateWithMatchLevel.create(candidate, matchLevel));
+        names.add(name);
         return this;
     }
 
     public ImmutableList<CompletionCandidate> build() {
-        return candidateMap.values().stream()
+        return candidates.stream()
 //                .flatMap(EntityShadowingListBuilder::stream)
                 .sorted()
                 .map(CompletionCandidateWithMatchLevel::getCompletionCandidate)
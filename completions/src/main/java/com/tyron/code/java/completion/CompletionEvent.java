@@ -0,0 +1,65 @@
+package com.tyron.code.java.completion;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A completion, with the time spent in each of its phases. See {@link CompletionMetrics.Phase}.
+ */
+@Name("com.tyron.code.Completion")
+@Label("Completion")
+@Category({"Code Assist", "Completion"})
+@Description("A completion request and the time spent in each of its phases")
+@StackTrace(false)
+class CompletionEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Kind")
+    @Description("The completion action, Cached or None")
+    String kind;
+
+    @Label("Prefix Length")
+    int prefixLength;
+
+    @Label("Candidates")
+    int candidates;
+
+    @Label("Fix Content")
+    @Timespan(Timespan.NANOSECONDS)
+    long fixContent;
+
+    @Label("Adjust Line Map")
+    @Timespan(Timespan.NANOSECONDS)
+    long adjustLineMap;
+
+    @Label("Parse")
+    @Timespan(Timespan.NANOSECONDS)
+    long parse;
+
+    @Label("Enter")
+    @Timespan(Timespan.NANOSECONDS)
+    long enter;
+
+    @Label("Attribute")
+    @Timespan(Timespan.NANOSECONDS)
+    long attribute;
+
+    @Label("Find Path")
+    @Timespan(Timespan.NANOSECONDS)
+    long findPath;
+
+    @Label("Generate Candidates")
+    @Timespan(Timespan.NANOSECONDS)
+    long generateCandidates;
+
+    @Label("Rank")
+    @Timespan(Timespan.NANOSECONDS)
+    long rank;
+}
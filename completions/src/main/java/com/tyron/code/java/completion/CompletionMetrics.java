@@ -0,0 +1,89 @@
+package com.tyron.code.java.completion;
+
+import com.tyron.code.project.util.LatencyHistogram;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency histograms of the phases of the completions of a {@link Completor}, by the kind of
+ * completion.
+ *
+ * <p>The kind of a completion is the simple name of the {@link CompletionAction} that produced its
+ * candidates, {@link #CACHED} for a completion narrowed down from a cached one and {@link #NONE}
+ * when there was nothing to complete at the position. Superseded completions are not recorded.
+ * Each completion is also reported as a {@code com.tyron.code.Completion} JFR event.
+ */
+public class CompletionMetrics {
+
+    public static final String CACHED = "Cached";
+    public static final String NONE = "None";
+
+    public enum Phase {
+        /** Fixing up the file contents with {@code FileContentFixer}. */
+        FIX_CONTENT,
+        /** Mapping the position to the fixed contents, inserting a dummy identifier if needed. */
+        ADJUST_LINE_MAP,
+        /** javac parsing the file. */
+        PARSE,
+        /** javac entering the parsed file. */
+        ENTER,
+        /** javac attributing the file, or the member around the position for a partial analysis. */
+        ATTRIBUTE,
+        /** Finding the tree path of the position with {@link FindCompletionsAt}. */
+        FIND_PATH,
+        /** The {@link CompletionAction} generating the candidates. */
+        GENERATE_CANDIDATES,
+        /** Ranking or narrowing down the candidates. */
+        RANK,
+        /** The whole completion, including the time waiting for the analyzer. */
+        TOTAL
+    }
+
+    private record Key(String kind, Phase phase) {
+    }
+
+    private final Map<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * @return the histogram of the phase for completions of the given kind, empty if there were none
+     */
+    public LatencyHistogram getHistogram(String kind, Phase phase) {
+        LatencyHistogram histogram = histograms.get(new Key(kind, phase));
+        return histogram != null ? histogram : new LatencyHistogram();
+    }
+
+    /**
+     * @return the kinds of completions recorded so far
+     */
+    public Set<String> getKinds() {
+        Set<String> kinds = new TreeSet<>();
+        histograms.keySet().forEach(key -> kinds.add(key.kind()));
+        return kinds;
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    void record(String kind, Phase phase, long nanos) {
+        histograms.computeIfAbsent(new Key(kind, phase), it -> new LatencyHistogram()).recordNanos(nanos);
+    }
+
+    @Override
+    public String toString() {
+        Map<String, Map<Phase, LatencyHistogram>> byKind = new TreeMap<>();
+        histograms.forEach((key, histogram) ->
+                byKind.computeIfAbsent(key.kind(), it -> new TreeMap<>()).put(key.phase(), histogram));
+        StringBuilder builder = new StringBuilder();
+        byKind.forEach((kind, phases) -> {
+            builder.append(kind).append('\n');
+            phases.forEach((phase, histogram) ->
+                    builder.append("  ").append(phase).append(": ").append(histogram).append('\n'));
+        });
+        return builder.toString();
+    }
+}
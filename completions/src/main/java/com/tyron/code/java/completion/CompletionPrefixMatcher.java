@@ -1,6 +1,14 @@
 package com.tyron.code.java.completion;
 
-/** Logic of matching a completion name with a given completion prefix. */
+import com.tyron.code.project.util.CamelHumps;
+
+/**
+ * Logic of matching a completion name with a given completion prefix.
+ *
+ * <p>The {@link CandidateName} overloads do not allocate, they are meant for matching many
+ * candidates against the same prefix, such as when narrowing down the candidates of a previous
+ * completion.
+ */
 public class CompletionPrefixMatcher {
 
     /**
@@ -12,6 +20,8 @@ public class CompletionPrefixMatcher {
      */
     public enum MatchLevel {
         NOT_MATCH,
+        /** The prefix is made of prefixes of the words of the name, {@code ArLi} for {@code ArrayList}. */
+        CAMEL_HUMP,
         CASE_INSENSITIVE_PREFIX,
         CASE_SENSITIVE_PREFIX,
         CASE_INSENSITIVE_EQUAL,
@@ -20,18 +30,43 @@ public class CompletionPrefixMatcher {
 
     /** Returns how well does {@code candidateName} match {@code completionPrefix}. */
     public static MatchLevel computeMatchLevel(String candidateName, String completionPrefix) {
+        int length = completionPrefix.length();
         if (candidateName.startsWith(completionPrefix)) {
-            return candidateName.length() == completionPrefix.length()
+            return candidateName.length() == length
+                    ? MatchLevel.CASE_SENSITIVE_EQUAL
+                    : MatchLevel.CASE_SENSITIVE_PREFIX;
+        }
+
+        if (candidateName.regionMatches(true, 0, completionPrefix, 0, length)) {
+            return candidateName.length() == length
+                    ? MatchLevel.CASE_INSENSITIVE_EQUAL
+                    : MatchLevel.CASE_INSENSITIVE_PREFIX;
+        }
+
+        if (length > 1 && CamelHumps.matches(CandidateName.of(candidateName), CandidateName.of(completionPrefix))) {
+            return MatchLevel.CAMEL_HUMP;
+        }
+        return MatchLevel.NOT_MATCH;
+    }
+
+    /** Returns how well does {@code candidateName} match {@code completionPrefix}. */
+    public static MatchLevel computeMatchLevel(CandidateName candidateName, CandidateName completionPrefix) {
+        int length = completionPrefix.length();
+        if (candidateName.getName().startsWith(completionPrefix.getName())) {
+            return candidateName.length() == length
                     ? MatchLevel.CASE_SENSITIVE_EQUAL
                     : MatchLevel.CASE_SENSITIVE_PREFIX;
         }
 
-        if (candidateName.toLowerCase().startsWith(completionPrefix.toLowerCase())) {
-            return candidateName.length() == completionPrefix.length()
+        if (startsWithIgnoreCase(candidateName, completionPrefix)) {
+            return candidateName.length() == length
                     ? MatchLevel.CASE_INSENSITIVE_EQUAL
                     : MatchLevel.CASE_INSENSITIVE_PREFIX;
         }
 
+        if (length > 1 && CamelHumps.matches(candidateName, completionPrefix)) {
+            return MatchLevel.CAMEL_HUMP;
+        }
         return MatchLevel.NOT_MATCH;
     }
 
@@ -39,4 +74,35 @@ public class CompletionPrefixMatcher {
     public static boolean matches(String candidateName, String completionPrefix) {
         return computeMatchLevel(candidateName, completionPrefix) != MatchLevel.NOT_MATCH;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns {@code true} if the characters of {@code partial} appear in order in
+     * {@code candidateName}, ignoring case. An empty partial matches every name.
+     */
+    public static boolean matchesPartially(CandidateName candidateName, CandidateName partial) {
+        int nameIndex = 0;
+        for (int i = 0; i < partial.length(); i++) {
+            char c = partial.lowerCaseCharAt(i);
+            while (nameIndex < candidateName.length() && candidateName.lowerCaseCharAt(nameIndex) != c) {
+                nameIndex++;
+            }
+            if (nameIndex == candidateName.length()) {
+                return false;
+            }
+            nameIndex++;
+        }
+        return true;
+    }
+
+    private static boolean startsWithIgnoreCase(CandidateName candidateName, CandidateName prefix) {
+        if (candidateName.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (candidateName.lowerCaseCharAt(i) != prefix.lowerCaseCharAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,13 +1,95 @@
 package com.tyron.code.java.completion;
 
-import me.xdrop.fuzzywuzzy.FuzzySearch;
+import shadow.com.sun.tools.javac.util.Name;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
 
 public class CompletionPrefixUtils {
+    /**
+     * Returns {@code true} if the characters of {@code partial} appear in order in {@code string},
+     * ignoring case. Use {@link CompletionPrefixMatcher#matchesPartially} to match many names
+     * against the same partial.
+     */
     public static boolean prefixPartiallyMatch(String partial, String string) {
         // empty prefix means we need to match all
         if (partial.isEmpty()) {
             return true;
         }
-        return FuzzySearch.partialRatio(partial, string) >= 85;
+        int index = 0;
+        for (int i = 0; i < partial.length(); i++) {
+            char c = Character.toLowerCase(partial.charAt(i));
+            while (index < string.length() && Character.toLowerCase(string.charAt(index)) != c) {
+                index++;
+            }
+            if (index == string.length()) {
+                return false;
+            }
+            index++;
+        }
+        return true;
+    }
+
+    /**
+     * Like {@link #prefixPartiallyMatch(String, String)}, but javac names are matched on their
+     * UTF-8 bytes when {@code partial} is ASCII. A javac name creates a new {@link String} on every
+     * {@code toString()}, {@code length()} and {@code charAt(int)}.
+     */
+    public static Predicate<CharSequence> partiallyMatching(String partial) {
+        if (partial.isEmpty()) {
+            return it -> true;
+        }
+        byte[] lowerCase = partial.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        if (lowerCase.length != partial.length()) {
+            return it -> prefixPartiallyMatch(partial, it.toString());
+        }
+        return it -> {
+            if (!(it instanceof Name name)) {
+                return prefixPartiallyMatch(partial, it.toString());
+            }
+            byte[] bytes = name.getByteArray();
+            int index = name.getByteOffset();
+            int end = index + name.getByteLength();
+            for (byte b : lowerCase) {
+                while (index < end && toLowerCase(bytes[index]) != b) {
+                    index++;
+                }
+                if (index == end) {
+                    return false;
+                }
+                index++;
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Returns a filter of the names containing {@code part}. javac names are matched on their
+     * UTF-8 bytes, which contain the bytes of {@code part} exactly when the name contains it.
+     */
+    public static Predicate<CharSequence> containing(String part) {
+        byte[] partBytes = part.getBytes(StandardCharsets.UTF_8);
+        return it -> {
+            if (!(it instanceof Name name)) {
+                return it.toString().contains(part);
+            }
+            byte[] bytes = name.getByteArray();
+            int offset = name.getByteOffset();
+            int last = offset + name.getByteLength() - partBytes.length;
+            outer:
+            for (int start = offset; start <= last; start++) {
+                for (int i = 0; i < partBytes.length; i++) {
+                    if (bytes[start + i] != partBytes[i]) {
+                        continue outer;
+                    }
+                }
+                return true;
+            }
+            return false;
+        };
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
     }
 }
@@ -1,7 +1,6 @@
 package com.tyron.code.java.completion;
 
 import com.google.auto.value.AutoValue;
-import com.google.common.collect.ImmutableList;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -17,38 +16,31 @@ public abstract class CompletionResult {
 
     public abstract String getPrefix();
 
+    /**
+     * @return the candidates, best first. The list may rank its candidates as they are read, read the
+     * first page of a {@link RankedCompletionCandidates} to show the best candidates without ranking
+     * the rest
+     */
     public abstract List<CompletionCandidate> getCompletionCandidates();
 
     public abstract TextEditOptions getTextEditOptions();
 
-    public abstract Builder toBuilder();
-
-    public static Builder builder() {
-        return new AutoValue_CompletionResult.Builder();
-    }
+    /**
+     * @return whether candidates were left out of the result, typing more of the prefix requires a
+     * new completion
+     */
+    public abstract boolean isIncomplete();
 
     /**
-     * Check if the completor is processing a completion request that is an incremental completion of
-     * the cached completion.
+     * @return the context the candidates are accepted in, see {@link CompletionUsageModel}, empty
+     * if accepting a candidate is not counted
      */
-    boolean isIncrementalCompletion(Path filePath, int line, int column, String prefix) {
-        if (!getFilePath().equals(filePath)) {
-            return false;
-        }
-        if (getLine() != line) {
-            return false;
-        }
-        if (getColumn() > column) {
-            return false;
-        }
-        if (!prefix.startsWith(getPrefix())) {
-            return false;
-        }
-        if (prefix.length() - getPrefix().length() != column - getColumn()) {
-            // FIXME: This may break for complicated Unicodes.
-            return false;
-        }
-        return true;
+    public abstract String getUsageContext();
+
+    public abstract Builder toBuilder();
+
+    public static Builder builder() {
+        return new AutoValue_CompletionResult.Builder().setIncomplete(false).setUsageContext("");
     }
 
     @AutoValue.Builder
@@ -62,10 +54,14 @@ public abstract class CompletionResult {
         public abstract Builder setPrefix(String prefix);
 
         public abstract Builder setCompletionCandidates(
-                ImmutableList<CompletionCandidate> completionCandidates);
+                List<CompletionCandidate> completionCandidates);
 
         public abstract Builder setTextEditOptions(TextEditOptions textEditOptions);
 
+        public abstract Builder setIncomplete(boolean incomplete);
+
+        public abstract Builder setUsageContext(String usageContext);
+
         public abstract CompletionResult build();
     }
 }
\ No newline at end of file
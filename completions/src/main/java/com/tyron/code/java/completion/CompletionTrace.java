@@ -0,0 +1,91 @@
+package com.tyron.code.java.completion;
+
+import com.tyron.code.java.analysis.AnalysisTimings;
+import com.tyron.code.java.completion.CompletionMetrics.Phase;
+
+import java.nio.file.Path;
+
+/**
+ * The phase timings of a single completion, recorded into {@link CompletionMetrics} and reported
+ * as a {@link CompletionEvent} once the kind of the completion is known.
+ *
+ * <p>A phase is timed from the last {@link #mark()} or {@link #lap(Phase)}, so time spent between
+ * the phases, such as waiting for the analyzer, only counts towards {@link Phase#TOTAL}. A trace is
+ * handed from thread to thread along with the completion, it is not used concurrently.
+ */
+final class CompletionTrace {
+
+    private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+    private final long start;
+    private final long[] nanos = new long[Phase.values().length];
+    private final CompletionEvent event;
+    private long last;
+
+    CompletionTrace() {
+        start = last = System.nanoTime();
+        if (JFR_AVAILABLE) {
+            event = new CompletionEvent();
+            event.begin();
+        } else {
+            event = null;
+        }
+    }
+
+    void mark() {
+        last = System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the last mark to {@code phase}.
+     */
+    void lap(Phase phase) {
+        long now = System.nanoTime();
+        nanos[phase.ordinal()] += now - last;
+        last = now;
+    }
+
+    void record(AnalysisTimings timings) {
+        nanos[Phase.PARSE.ordinal()] += timings.parseNanos();
+        nanos[Phase.ENTER.ordinal()] += timings.enterNanos();
+        nanos[Phase.ATTRIBUTE.ordinal()] += timings.attributeNanos();
+    }
+
+    /**
+     * Records the phases that ran, and the total time since the trace was created.
+     */
+    void finish(CompletionMetrics metrics, String kind, Path file, String prefix, int candidates) {
+        nanos[Phase.TOTAL.ordinal()] = System.nanoTime() - start;
+        for (Phase phase : Phase.values()) {
+            if (nanos[phase.ordinal()] > 0 || phase == Phase.TOTAL) {
+                metrics.record(kind, phase, nanos[phase.ordinal()]);
+            }
+        }
+
+        if (event != null && event.shouldCommit()) {
+            event.end();
+            event.file = file.toString();
+            event.kind = kind;
+            event.prefixLength = prefix.length();
+            event.candidates = candidates;
+            event.fixContent = nanos[Phase.FIX_CONTENT.ordinal()];
+            event.adjustLineMap = nanos[Phase.ADJUST_LINE_MAP.ordinal()];
+            event.parse = nanos[Phase.PARSE.ordinal()];
+            event.enter = nanos[Phase.ENTER.ordinal()];
+            event.attribute = nanos[Phase.ATTRIBUTE.ordinal()];
+            event.findPath = nanos[Phase.FIND_PATH.ordinal()];
+            event.generateCandidates = nanos[Phase.GENERATE_CANDIDATES.ordinal()];
+            event.rank = nanos[Phase.RANK.ordinal()];
+            event.commit();
+        }
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, CompletionTrace.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.tyron.code.java.completion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
+
+/**
+ * Counts how often completion candidates were accepted, so candidates that are chosen often rank
+ * above the ones that are not, see {@link RankedCompletionCandidates}.
+ *
+ * <p>Counts are kept per context: the erased receiver type for members, such as
+ * {@code type:java.util.List}, and the module for symbols. Only the {@link #MAX_NAMES_PER_CONTEXT}
+ * most accepted names of each context and the {@link #MAX_CONTEXTS} contexts with the most accepted
+ * candidates are kept, in memory as well as in the file. Looking up a count is a hash lookup and
+ * never blocks.
+ *
+ * <p>An in-memory model counts on the calling thread. A persisted model is read from its file the
+ * first time it is used, until then every count is zero. It counts accepted candidates on a thread
+ * shared by all persisted models and rewrites the file at most once per
+ * {@link #SAVE_DELAY_SECONDS}, {@link #flush()} and {@link #closeAll()} save right away. The file
+ * holds the contexts with the candidate names and counts, written with {@link DataOutputStream}.
+ */
+public class CompletionUsageModel implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompletionUsageModel.class);
+
+    private static final int MAGIC = 0x43555347;
+    private static final int FORMAT_VERSION = 1;
+
+    static final int MAX_CONTEXTS = 4096;
+    static final int MAX_NAMES_PER_CONTEXT = 128;
+    static final long SAVE_DELAY_SECONDS = 5;
+
+    private static final Map<Path, CompletionUsageModel> PERSISTED = new ConcurrentHashMap<>();
+
+    /** Loads, counts and saves for every persisted model, its thread stops when idle. */
+    private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static final ToIntFunction<String> NO_USAGE = name -> 0;
+
+    private final Path file;
+    private final Map<String, Map<String, Integer>> counts = new ConcurrentHashMap<>();
+    private final AtomicBoolean loadStarted = new AtomicBoolean();
+    private final AtomicBoolean savePending = new AtomicBoolean();
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Completion Usage");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(10, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return a model that is not saved
+     */
+    public static CompletionUsageModel inMemory() {
+        return new CompletionUsageModel(null);
+    }
+
+    /**
+     * @return the model saved in {@code file}, shared by everyone using the same file
+     */
+    public static CompletionUsageModel persisted(Path file) {
+        return PERSISTED.computeIfAbsent(file.toAbsolutePath().normalize(), CompletionUsageModel::new);
+    }
+
+    /**
+     * Saves and closes every persisted model, called when the application exits.
+     */
+    public static void closeAll() {
+        for (CompletionUsageModel model : List.copyOf(PERSISTED.values())) {
+            model.close();
+        }
+    }
+
+    private CompletionUsageModel(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the number of times each candidate name has been accepted in {@code context}
+     */
+    public ToIntFunction<String> getCounts(String context) {
+        ensureLoading();
+        Map<String, Integer> names = counts.get(context);
+        if (names == null) {
+            return NO_USAGE;
+        }
+        return name -> names.getOrDefault(name, 0);
+    }
+
+    /**
+     * Counts a candidate as accepted in {@code context}. A persisted model counts it without
+     * waiting.
+     */
+    public void record(String context, String name) {
+        if (file == null) {
+            count(context, name);
+            return;
+        }
+        ensureLoading();
+        EXECUTOR.execute(() -> {
+            count(context, name);
+            scheduleSave();
+        });
+    }
+
+    /**
+     * Waits for the pending updates of a persisted model to be counted and saved.
+     */
+    public void flush() {
+        if (file == null) {
+            return;
+        }
+        try {
+            EXECUTOR.submit(this::save).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Failed to save completion usage to {}", file, e);
+        }
+    }
+
+    /**
+     * Saves the model and stops sharing it, {@link #persisted(Path)} reads the file again.
+     */
+    @Override
+    public void close() {
+        if (file != null) {
+            PERSISTED.remove(file, this);
+        }
+        flush();
+    }
+
+    /**
+     * Waits until the saved counts have been read, for tests.
+     */
+    void awaitLoaded() throws Exception {
+        ensureLoading();
+        if (file != null) {
+            EXECUTOR.submit(() -> {}).get();
+        }
+    }
+
+    /**
+     * @return the number of contexts held in memory, for tests
+     */
+    int getContextCount() {
+        return counts.size();
+    }
+
+    private synchronized void count(String context, String name) {
+        Map<String, Integer> names = counts.computeIfAbsent(context, it -> new ConcurrentHashMap<>());
+        names.merge(name, 1, Integer::sum);
+        // trim to the limits once they are exceeded twice over, so trimming stays amortized
+        if (names.size() > 2 * MAX_NAMES_PER_CONTEXT) {
+            List<String> kept = mostAccepted(names).subList(0, MAX_NAMES_PER_CONTEXT).stream()
+                    .map(Map.Entry::getKey)
+                    .toList();
+            names.keySet().retainAll(kept);
+        }
+        if (counts.size() > 2 * MAX_CONTEXTS) {
+            List<String> kept = mostAcceptedContexts().subList(0, MAX_CONTEXTS).stream()
+                    .map(Map.Entry::getKey)
+                    .toList();
+            counts.keySet().retainAll(kept);
+        }
+    }
+
+    private void ensureLoading() {
+        if (file != null && loadStarted.compareAndSet(false, true)) {
+            EXECUTOR.execute(this::load);
+        }
+    }
+
+    private void scheduleSave() {
+        if (savePending.compareAndSet(false, true)) {
+            EXECUTOR.schedule(this::save, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                logger.warn("Ignoring completion usage of an unknown format in {}", file);
+                return;
+            }
+            int contexts = in.readInt();
+            for (int i = 0; i < contexts; i++) {
+                String context = in.readUTF();
+                int names = in.readInt();
+                Map<String, Integer> contextCounts = counts.computeIfAbsent(context, it -> new ConcurrentHashMap<>());
+                for (int j = 0; j < names; j++) {
+                    contextCounts.merge(in.readUTF(), in.readInt(), Integer::sum);
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+            // nothing has been accepted yet
+        } catch (IOException e) {
+            logger.warn("Failed to read completion usage from {}", file, e);
+        }
+    }
+
+    private void save() {
+        // nothing was counted since the last save
+        if (!savePending.getAndSet(false)) {
+            return;
+        }
+        List<Map.Entry<String, Map<String, Integer>>> contexts = mostAcceptedContexts();
+        contexts = contexts.subList(0, Math.min(contexts.size(), MAX_CONTEXTS));
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(contexts.size());
+                for (Map.Entry<String, Map<String, Integer>> context : contexts) {
+                    List<Map.Entry<String, Integer>> names = mostAccepted(context.getValue());
+                    names = names.subList(0, Math.min(names.size(), MAX_NAMES_PER_CONTEXT));
+                    out.writeUTF(context.getKey());
+                    out.writeInt(names.size());
+                    for (Map.Entry<String, Integer> name : names) {
+                        out.writeUTF(name.getKey());
+                        out.writeInt(name.getValue());
+                    }
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to save completion usage to {}", file, e);
+        }
+    }
+
+    private List<Map.Entry<String, Map<String, Integer>>> mostAcceptedContexts() {
+        List<Map.Entry<String, Map<String, Integer>>> contexts = new ArrayList<>(counts.entrySet());
+        contexts.sort(Comparator.comparingLong(
+                (Map.Entry<String, Map<String, Integer>> it) -> total(it.getValue())).reversed());
+        return contexts;
+    }
+
+    private static List<Map.Entry<String, Integer>> mostAccepted(Map<String, Integer> names) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(names.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        return entries;
+    }
+
+    private static long total(Map<String, Integer> names) {
+        long total = 0;
+        for (int count : names.values()) {
+            total += count;
+        }
+        return total;
+    }
+}
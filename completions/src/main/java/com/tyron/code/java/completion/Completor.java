@@ -1,9 +1,11 @@
 package com.tyron.code.java.completion;
 
 import com.google.common.collect.ImmutableList;
+import com.tyron.code.java.analysis.AnalysisScheduler.Priority;
 import com.tyron.code.java.analysis.Analyzer;
 import com.tyron.code.java.parsing.FileContentFixer;
 import com.tyron.code.java.parsing.Insertion;
+import com.tyron.code.java.parsing.JavaTokens;
 import com.tyron.code.java.parsing.ParserContext;
 import com.tyron.code.project.file.FileManager;
 import com.tyron.code.project.model.module.JavaModule;
@@ -14,9 +16,13 @@ import shadow.com.sun.tools.javac.tree.JCTree;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class Completor {
 
@@ -30,18 +36,50 @@ public class Completor {
                     .setTextEditOptions(TextEditOptions.DEFAULT)
                     .build();
 
-    private CompletionResult cachedCompletion = NO_CACHE;
+    private final CompletionCache completionCache = new CompletionCache(CompletionCache.DEFAULT_CAPACITY);
+
+    private final CompletionMetrics metrics = new CompletionMetrics();
+
+    /** The tokens of the last completed content of each file, relexed where the file was edited. */
+    private final Map<Path, JavaTokens> fileTokens = new ConcurrentHashMap<>();
 
     private final FileManager fileManager;
 
     private final Analyzer analyzer;
 
+    private final CompletionUsageModel usageModel;
+
     public Completor(FileManager fileManager, Analyzer analyzer) {
+        this(fileManager, analyzer, CompletionUsageModel.inMemory());
+    }
+
+    /**
+     * @param usageModel counts the accepted candidates, which rank above the ones not accepted as
+     *                   often
+     */
+    public Completor(FileManager fileManager, Analyzer analyzer, CompletionUsageModel usageModel) {
         this.fileManager = fileManager;
         this.analyzer = analyzer;
+        this.usageModel = usageModel;
     }
 
     public CompletionResult getCompletionResult(Path file, int line, int column) {
+        return getCompletionResultAsync(file, line, column, result -> {}).join();
+    }
+
+    /**
+     * Completes without waiting for the analysis of the file.
+     *
+     * <p>Candidates that do not need an analysis, the classes of the class name index matching the
+     * prefix of a symbol, are passed to {@code partialResult} on the calling thread before this
+     * method returns. The partial result is marked incomplete. The returned future completes with
+     * the full result once the file has been analyzed, which includes the candidates of the partial
+     * result. Nothing is passed to {@code partialResult} for a completion served from the cache.
+     *
+     * <p>A superseded completion completes with a result without candidates. Cancelling the
+     * returned future cancels the analysis of the completion.
+     */
+    public CompletableFuture<CompletionResult> getCompletionResultAsync(Path file, int line, int column, Consumer<CompletionResult> partialResult) {
         // PositionContext gets the tree path whose leaf node includes the position
         // (position < node's endPosition). However, for completions, we want the leaf node either
         // includes the position, or just before the position (position == node's endPosition).
@@ -49,20 +87,46 @@ public class Completor {
         // adjustedPosition == node's endPosition - 1 if the node is just before the actual position.
         int contextColumn = column > 0 ? column - 1 : 0;
 
+        CompletionTrace trace = new CompletionTrace();
+        Optional<CharSequence> fileContent = fileManager.getFileContent(file);
+        if (fileContent.isEmpty()) {
+            return CompletableFuture.completedFuture(NO_CACHE);
+        }
+
+        // look for a previous completion of the same site before fixing and analyzing the file
+        // the content is scanned char by char below, a snapshot keeps its string once computed
+        String originalContent = fileContent.get().toString();
+        int caret = getOffset(originalContent, line, column);
+        int anchor = caret;
+        while (anchor > 0 && Character.isJavaIdentifierPart(originalContent.charAt(anchor - 1))) {
+            anchor--;
+        }
+        String typedPrefix = originalContent.subSequence(anchor, caret).toString();
+        long version = fileManager.getSnapshotVersion(file).orElse(-1L);
+        CompletionResult cached = completionCache.get(file, anchor, caret, typedPrefix, version, originalContent);
+        if (cached != null) {
+            trace.mark();
+            CompletionResult result = getCompletionCandidatesFromCache(cached, line, column, typedPrefix);
+            trace.lap(CompletionMetrics.Phase.RANK);
+            trace.finish(metrics, CompletionMetrics.CACHED, file, typedPrefix, result.getCompletionCandidates().size());
+            return CompletableFuture.completedFuture(result);
+        }
+
         ParserContext parserContext = new ParserContext();
         parserContext.setupLoggingSource(file.toString());
         FileContentFixer fileContentFixer = new FileContentFixer(parserContext);
 
-        Optional<FileContentFixer.FixedContent> contents = fileManager.getFileContent(file)
-                .map(fileContentFixer::fixFileContent);
-        if (contents.isEmpty()) {
-            return NO_CACHE;
-        }
+        trace.mark();
+        JavaTokens tokens = fileTokens.compute(file, (key, previous) -> previous == null
+                ? JavaTokens.lex(parserContext, originalContent)
+                : previous.relex(parserContext, originalContent));
+        FileContentFixer.FixedContent contents = fileContentFixer.fixFileContent(tokens);
+        trace.lap(CompletionMetrics.Phase.FIX_CONTENT);
 
-        LineMap adjustedLineMap = contents.get().getAdjustedLineMap();
+        LineMap adjustedLineMap = contents.getAdjustedLineMap();
         long offset = adjustedLineMap.getPosition(line + 1, column + 1);
 
-        String adjustedContent = contents.get().getContent();
+        String adjustedContent = contents.getContent();
         char c = adjustedContent.charAt((int) offset - 1);
         if (!Character.isJavaIdentifierPart(c) && c != '.') {
             // append dummy identifier so that we can complete in this context
@@ -80,79 +144,170 @@ public class Completor {
 
         ContentWithLineMap contentWithLineMap = ContentWithLineMap.create(adjustedContent, adjustedLineMap, file);
         String prefix = contentWithLineMap.extractCompletionPrefix((int) offset);
+        trace.lap(CompletionMetrics.Phase.ADJUST_LINE_MAP);
+
+        CompletionResult.Builder resultBuilder = CompletionResult.builder()
+                .setFilePath(file)
+                .setLine(line)
+                .setColumn(column)
+                .setPrefix(prefix)
+                .setTextEditOptions(TextEditOptions.builder().setAppendMethodArgumentSnippets(false).build());
+
+        // found once here and reused by the analyzed completion of the same prefix
+        List<CompletionCandidate> classes = null;
+        if (!prefix.isEmpty() && !isAfterDot(originalContent, anchor)) {
+            classes = CompleteSymbolAction.findClassCandidates(analyzer.getModule(), prefix);
+            if (!classes.isEmpty()) {
+                String usageContext = getModuleUsageContext();
+                partialResult.accept(resultBuilder
+                        .setCompletionCandidates(RankedCompletionCandidates.rank(
+                                classes, prefix, RankedCompletionCandidates.DEFAULT_PAGE_SIZE, usageModel.getCounts(usageContext)))
+                        .setIncomplete(true)
+                        .setUsageContext(usageContext)
+                        .build());
+            }
+        }
+
+        int finalAnchor = anchor;
+        CompletableFuture<Candidates> analysis = computeCandidates(
+                file,
+                contentWithLineMap.getContent().toString(),
+                ((int) offset),
+                prefix,
+                classes,
+                trace
+        );
+        CompletableFuture<CompletionResult> completion = analysis.exceptionally(Completor::cancelledCandidates).thenApply(candidates -> {
+            trace.mark();
+            RankedCompletionCandidates ranked = RankedCompletionCandidates.rank(
+                    candidates.candidates(), prefix, RankedCompletionCandidates.DEFAULT_PAGE_SIZE,
+                    usageModel.getCounts(candidates.usageContext()));
+            trace.lap(CompletionMetrics.Phase.RANK);
+            CompletionResult result = resultBuilder
+                    .setCompletionCandidates(ranked)
+                    .setIncomplete(candidates.incomplete())
+                    .setUsageContext(candidates.usageContext())
+                    .build();
+            if (candidates != Candidates.CANCELLED) {
+                completionCache.put(file, finalAnchor, caret, typedPrefix, version, originalContent, result);
+                trace.finish(metrics, candidates.kind(), file, prefix, ranked.size());
+            }
+            return result;
+        });
+        completion.whenComplete((result, throwable) -> {
+            if (completion.isCancelled()) {
+                analysis.cancel(false);
+            }
+        });
+        return completion;
+    }
+
+    /**
+     * @return the latency histograms of the completions of this completor
+     */
+    public CompletionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Drops the cached completions and tokens of a file, the completions are otherwise only dropped
+     * once the file has been edited around them.
+     */
+    public void invalidate(Path file) {
+        completionCache.invalidate(file);
+        fileTokens.remove(file);
+    }
+
+    /**
+     * Counts a candidate of a result as accepted, so it ranks higher in later completions of the
+     * same context. Results that are already cached keep their order.
+     */
+    public void recordAccepted(CompletionResult result, CompletionCandidate candidate) {
+        if (!result.getUsageContext().isEmpty()) {
+            usageModel.record(result.getUsageContext(), candidate.getName());
+        }
+    }
+
+    private String getModuleUsageContext() {
+        return "module:" + analyzer.getModule().getName();
+    }
+
+    private static int getOffset(CharSequence content, int line, int column) {
+        int offset = 0;
+        for (int i = 0; i < line && offset < content.length(); offset++) {
+            if (content.charAt(offset) == '\n') {
+                i++;
+            }
+        }
+        return Math.min(offset + column, content.length());
+    }
 
-        System.out.println(prefix);
-
-        // TODO: limit the number of the candidates.
-        if (cachedCompletion.isIncrementalCompletion(file, line, column, prefix)) {
-            return getCompletionCandidatesFromCache(line, column, prefix);
-        } else {
-            cachedCompletion =
-                    computeCompletionResult(
-                            file,
-                            contentWithLineMap.getContent().toString(),
-                            line,
-                            column,
-                            ((int) offset),
-                            prefix
-                    );
-            return cachedCompletion;
+    /**
+     * @return whether the identifier starting at {@code anchor} is the name of a member select
+     */
+    private static boolean isAfterDot(CharSequence content, int anchor) {
+        int index = anchor - 1;
+        while (index >= 0 && Character.isWhitespace(content.charAt(index))) {
+            index--;
         }
+        return index >= 0 && content.charAt(index) == '.';
     }
 
-    private CompletionResult computeCompletionResult(
+    /**
+     * @param classes the classes matching the prefix if they were already found, or {@code null}
+     */
+    private CompletableFuture<Candidates> computeCandidates(
             Path file,
             String fixedContents,
-            int line,
-            int column,
             int offset,
-            String prefix) {
-        TextEditOptions.Builder textEditOptions =
-                TextEditOptions.builder().setAppendMethodArgumentSnippets(false);
-
-        CompletableFuture<ImmutableList<CompletionCandidate>> future = new CompletableFuture<>();
-
-        try {
-            analyzer.analyze(file, fixedContents, analysisResult -> {
-                JavaModule module = analysisResult.module();
-                JCTree.JCCompilationUnit jcCompilationUnit = (JCTree.JCCompilationUnit) analysisResult.parsedTree();
-                analyzer.checkCancelled();
-
-                FindCompletionsAt findCompletionsAt = new FindCompletionsAt(analysisResult.javacTask());
-                TreePath currentAnalyzedPath = findCompletionsAt.scan(jcCompilationUnit, (long) offset);
-                CompletionArgs args = new CompletionArgs(null, module, currentAnalyzedPath, analysisResult, prefix);
-                analyzer.checkCancelled();
-
-                CompletionAction action = getCompletionAction(currentAnalyzedPath);
-
-                if (action == null) {
-                    future.complete(ImmutableList.of());
-                    return;
-                }
-
-
-                try {
-                    ImmutableList<CompletionCandidate> candidates = action.getCompletionCandidates(args);
-                    future.complete(candidates);
-                } catch (CancellationException e) {
-                    future.complete(ImmutableList.of());
-                }
-            });
-        } catch (CancellationException e) {
-            future.complete(ImmutableList.of());
-        }
+            String prefix,
+            List<CompletionCandidate> classes,
+            CompletionTrace trace) {
+        return analyzer.submitPartial(Priority.INTERACTIVE, file, fixedContents, offset, analysisResult -> {
+            trace.record(analysisResult.timings());
+            trace.mark();
+            JavaModule module = analysisResult.module();
+            JCTree.JCCompilationUnit jcCompilationUnit = (JCTree.JCCompilationUnit) analysisResult.parsedTree();
+            analyzer.checkCancelled();
+
+            FindCompletionsAt findCompletionsAt = new FindCompletionsAt(analysisResult.javacTask());
+            TreePath currentAnalyzedPath = findCompletionsAt.scan(jcCompilationUnit, (long) offset);
+            CompletionArgs args = new CompletionArgs(null, module, currentAnalyzedPath, analysisResult, prefix, classes);
+            analyzer.checkCancelled();
+            trace.lap(CompletionMetrics.Phase.FIND_PATH);
+
+            CompletionAction action = getCompletionAction(currentAnalyzedPath);
+            if (action == null) {
+                return Candidates.NONE;
+            }
+            ImmutableList<CompletionCandidate> candidates = action.getCompletionCandidates(args);
+            trace.lap(CompletionMetrics.Phase.GENERATE_CANDIDATES);
+            String usageContext = action.getUsageContext();
+            return new Candidates(
+                    candidates,
+                    action.isIncomplete(),
+                    action.getClass().getSimpleName(),
+                    usageContext != null ? usageContext : getModuleUsageContext());
+        });
+    }
 
+    private static Candidates cancelledCandidates(Throwable throwable) {
+        if (throwable instanceof CancellationException
+                || throwable instanceof CompletionException && throwable.getCause() instanceof CancellationException) {
+            return Candidates.CANCELLED;
+        }
+        throw throwable instanceof CompletionException completionException
+                ? completionException
+                : new CompletionException(throwable);
+    }
 
-        ImmutableList<CompletionCandidate> candidates =
-                future.join();
-        return CompletionResult.builder()
-                .setFilePath(file)
-                .setLine(line)
-                .setColumn(column)
-                .setPrefix(prefix)
-                .setCompletionCandidates(candidates)
-                .setTextEditOptions(textEditOptions.build())
-                .build();
+    /**
+     * @param kind the kind of the completion, see {@link CompletionMetrics}
+     * @param usageContext the context of {@link CompletionUsageModel}, empty if not counted
+     */
+    private record Candidates(ImmutableList<CompletionCandidate> candidates, boolean incomplete, String kind, String usageContext) {
+        static final Candidates NONE = new Candidates(ImmutableList.of(), false, CompletionMetrics.NONE, "");
+        static final Candidates CANCELLED = new Candidates(ImmutableList.of(), false, CompletionMetrics.NONE, "");
     }
 
     private static CompletionAction getCompletionAction(TreePath currentAnalyzedPath) {
@@ -169,12 +324,14 @@ public class Completor {
         return action;
     }
 
-    private CompletionResult getCompletionCandidatesFromCache(int line, int column, String prefix) {
+    private CompletionResult getCompletionCandidatesFromCache(CompletionResult cachedCompletion, int line, int column, String prefix) {
 
-        ImmutableList<CompletionCandidate> narrowedCandidates =
-                new CompletionCandidateListBuilder(prefix)
-                        .addCandidates(cachedCompletion.getCompletionCandidates())
-                        .build();
+        List<CompletionCandidate> cachedCandidates = cachedCompletion.getCompletionCandidates();
+        RankedCompletionCandidates ranked = cachedCandidates instanceof RankedCompletionCandidates it
+                ? it
+                : RankedCompletionCandidates.rank(cachedCandidates, prefix, 0);
+        RankedCompletionCandidates narrowedCandidates =
+                ranked.narrow(prefix, RankedCompletionCandidates.DEFAULT_PAGE_SIZE);
         return cachedCompletion
                 .toBuilder()
                 .setCompletionCandidates(narrowedCandidates)
@@ -0,0 +1,117 @@
+package com.tyron.code.java.completion;
+
+import shadow.com.sun.tools.javac.code.Symbol;
+import shadow.javax.lang.model.type.DeclaredType;
+import shadow.javax.lang.model.type.TypeKind;
+import shadow.javax.lang.model.type.TypeMirror;
+import shadow.javax.tools.JavaFileObject;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Member select candidates of binary types, rendered once per classpath generation.
+ *
+ * <p>The members of a class read from a jar or the JDK only change with the classpath, so the
+ * javac member walk, the grouping of overloads and the printing of method signatures are done once
+ * per type and classpath generation. A type qualifies when it and its type arguments are all read
+ * from class files. The key is the printed type with its type arguments, since they change the
+ * signatures of the members.
+ *
+ * <p>Which members are accessible depends on where the completion happens, so it is decided per
+ * request from the access and the declaring class recorded with each member.
+ */
+class MemberCompletionCache {
+
+    static final MemberCompletionCache INSTANCE = new MemberCompletionCache();
+
+    private static final int MAX_TYPES = 256;
+
+    enum Access {
+        PUBLIC,
+        PROTECTED,
+        PACKAGE,
+        PRIVATE
+    }
+
+    /**
+     * @param declaringClass the qualified name of the class declaring the member
+     * @param declaringPackage the qualified name of the package of that class
+     */
+    record Member(RenderedCompletionCandidate candidate,
+                  boolean isStatic,
+                  Access access,
+                  String declaringClass,
+                  String declaringPackage) {
+    }
+
+    private record Key(long classPathGeneration, String type) {
+    }
+
+    private final Map<Key, List<Member>> members = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<Member>> eldest) {
+            return size() > MAX_TYPES;
+        }
+    };
+
+    private int hitCount;
+    private int missCount;
+
+    /**
+     * @return whether the members of {@code type} can be cached
+     */
+    static boolean isCacheable(DeclaredType type) {
+        if (!(type.asElement() instanceof Symbol.ClassSymbol symbol)
+                || symbol.classfile == null
+                || symbol.classfile.getKind() != JavaFileObject.Kind.CLASS) {
+            return false;
+        }
+        for (TypeMirror argument : type.getTypeArguments()) {
+            if (!(argument instanceof DeclaredType declaredArgument) || !isCacheable(declaredArgument)) {
+                return false;
+            }
+        }
+        TypeMirror enclosingType = type.getEnclosingType();
+        return enclosingType.getKind() == TypeKind.NONE
+                || enclosingType instanceof DeclaredType declaredEnclosing && isCacheable(declaredEnclosing);
+    }
+
+    /**
+     * Returns the cached members of a type accepted by {@link #isCacheable(DeclaredType)},
+     * rendering them if they are not cached yet.
+     */
+    List<Member> get(long classPathGeneration, DeclaredType type, Supplier<List<Member>> render) {
+        Key key = new Key(classPathGeneration, type.toString());
+        synchronized (this) {
+            List<Member> cached = members.get(key);
+            if (cached != null) {
+                hitCount++;
+                return cached;
+            }
+            missCount++;
+        }
+
+        List<Member> rendered = List.copyOf(render.get());
+        synchronized (this) {
+            members.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    synchronized int getMissCount() {
+        return missCount;
+    }
+
+    synchronized void clear() {
+        members.clear();
+        hitCount = 0;
+        missCount = 0;
+    }
+}
@@ -0,0 +1,243 @@
+package com.tyron.code.java.completion;
+
+import com.google.common.collect.ImmutableList;
+import com.tyron.code.java.completion.CompletionPrefixMatcher.MatchLevel;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.ToIntFunction;
+
+/**
+ * Completion candidates in rank order, ranked as they are read.
+ *
+ * <p>Only the first page is ranked up front, by keeping the best candidates in a heap bounded by
+ * the page size. The rest of the candidates are sorted the first time an index past the first page
+ * is read, which a completion popup does once it is scrolled past the first page. Candidates are
+ * ranked by their sort category, then by how well they match the prefix, then by how often they
+ * were accepted before, see {@link CompletionUsageModel}, then by name.
+ *
+ * <p>The names of the candidates are prepared for matching when the list is created, so
+ * {@link #narrow(String, int)} matches each candidate against a longer prefix without allocating.
+ */
+public final class RankedCompletionCandidates extends AbstractList<CompletionCandidate> implements RandomAccess {
+
+    /** The number of candidates a completion popup shows before it is scrolled. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final CompletionCandidate[] candidates;
+    private final CandidateName[] names;
+    private final MatchLevel[] matchLevels;
+    private final int[] usages;
+    private final ImmutableList<CompletionCandidate> firstPage;
+    private final boolean[] onFirstPage;
+    private volatile ImmutableList<CompletionCandidate> rest;
+
+    /**
+     * Ranks candidates by how well they match {@code prefix}, without leaving out the ones that do
+     * not match it, they rank last within their sort category.
+     */
+    public static RankedCompletionCandidates rank(List<CompletionCandidate> candidates, String prefix, int pageSize) {
+        return rank(candidates, prefix, pageSize, name -> 0);
+    }
+
+    /**
+     * Like {@link #rank(List, String, int)}, candidates that match equally well are ranked by how
+     * often they were accepted.
+     *
+     * @param usage the number of times a candidate name was accepted
+     */
+    public static RankedCompletionCandidates rank(List<CompletionCandidate> candidates, String prefix, int pageSize, ToIntFunction<String> usage) {
+        CandidateName prefixName = CandidateName.of(prefix);
+        int size = candidates.size();
+        CompletionCandidate[] array = candidates.toArray(new CompletionCandidate[0]);
+        CandidateName[] names = new CandidateName[size];
+        MatchLevel[] matchLevels = new MatchLevel[size];
+        int[] usages = new int[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = array[i] instanceof RenderedCompletionCandidate rendered
+                    ? rendered.getCandidateName()
+                    : CandidateName.of(array[i].getName());
+            matchLevels[i] = CompletionPrefixMatcher.computeMatchLevel(names[i], prefixName);
+            usages[i] = usage.applyAsInt(names[i].getName());
+        }
+        return new RankedCompletionCandidates(array, names, matchLevels, usages, pageSize);
+    }
+
+    private RankedCompletionCandidates(CompletionCandidate[] candidates, CandidateName[] names, MatchLevel[] matchLevels, int[] usages, int pageSize) {
+        this.candidates = candidates;
+        this.names = names;
+        this.matchLevels = matchLevels;
+        this.usages = usages;
+        this.onFirstPage = new boolean[candidates.length];
+        this.firstPage = selectFirstPage(pageSize);
+        this.rest = firstPage.size() == candidates.length ? ImmutableList.of() : null;
+    }
+
+    /**
+     * Keeps the candidates that match {@code prefix}, typically a longer prefix than the one these
+     * candidates were ranked for. The usage counts are the ones the candidates were ranked with.
+     */
+    public RankedCompletionCandidates narrow(String prefix, int pageSize) {
+        CandidateName prefixName = CandidateName.of(prefix);
+        MatchLevel[] allMatchLevels = new MatchLevel[candidates.length];
+        int count = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            allMatchLevels[i] = CompletionPrefixMatcher.computeMatchLevel(names[i], prefixName);
+            if (allMatchLevels[i] != MatchLevel.NOT_MATCH) {
+                count++;
+            }
+        }
+        CompletionCandidate[] matchedCandidates = new CompletionCandidate[count];
+        CandidateName[] matchedNames = new CandidateName[count];
+        MatchLevel[] matchLevels = new MatchLevel[count];
+        int[] matchedUsages = new int[count];
+        for (int i = 0, j = 0; i < candidates.length; i++) {
+            if (allMatchLevels[i] != MatchLevel.NOT_MATCH) {
+                matchedCandidates[j] = candidates[i];
+                matchedNames[j] = names[i];
+                matchLevels[j] = allMatchLevels[i];
+                matchedUsages[j] = usages[i];
+                j++;
+            }
+        }
+        return new RankedCompletionCandidates(matchedCandidates, matchedNames, matchLevels, matchedUsages, pageSize);
+    }
+
+    /**
+     * @return the best candidates, at most as many as the page size
+     */
+    public ImmutableList<CompletionCandidate> getFirstPage() {
+        return firstPage;
+    }
+
+    @Override
+    public CompletionCandidate get(int index) {
+        if (index < firstPage.size()) {
+            return firstPage.get(index);
+        }
+        return getRest().get(index - firstPage.size());
+    }
+
+    @Override
+    public int size() {
+        return candidates.length;
+    }
+
+    private ImmutableList<CompletionCandidate> getRest() {
+        ImmutableList<CompletionCandidate> rest = this.rest;
+        if (rest == null) {
+            synchronized (this) {
+                rest = this.rest;
+                if (rest == null) {
+                    rest = this.rest = sortRest();
+                }
+            }
+        }
+        return rest;
+    }
+
+    private ImmutableList<CompletionCandidate> sortRest() {
+        Integer[] indices = new Integer[candidates.length - firstPage.size()];
+        for (int i = 0, j = 0; i < candidates.length; i++) {
+            if (!onFirstPage[i]) {
+                indices[j++] = i;
+            }
+        }
+        Arrays.sort(indices, this::compare);
+        ImmutableList.Builder<CompletionCandidate> builder = ImmutableList.builderWithExpectedSize(indices.length);
+        for (int index : indices) {
+            builder.add(candidates[index]);
+        }
+        return builder.build();
+    }
+
+    private ImmutableList<CompletionCandidate> selectFirstPage(int pageSize) {
+        int capacity = Math.min(Math.max(pageSize, 0), candidates.length);
+        // a heap of indices with the worst candidate at the root, so it is the one replaced
+        int[] heap = new int[capacity];
+        int size = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (size < capacity) {
+                heap[size] = i;
+                siftUp(heap, size++);
+            } else if (capacity > 0 && compare(i, heap[0]) < 0) {
+                heap[0] = i;
+                siftDown(heap, size);
+            }
+        }
+        // popping the worst candidate first fills the page from the back
+        CompletionCandidate[] page = new CompletionCandidate[size];
+        while (size > 0) {
+            int worst = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+            page[size] = candidates[worst];
+            onFirstPage[worst] = true;
+        }
+        return ImmutableList.copyOf(page);
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compare(heap[index], heap[parent]) <= 0) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && compare(heap[left], heap[worst]) > 0) {
+                worst = left;
+            }
+            if (right < size && compare(heap[right], heap[worst]) > 0) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int temp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = temp;
+    }
+
+    /**
+     * Compares the candidates at two indices, the better candidate first. Ties are broken by the
+     * index, so the first page and the rest agree on the order.
+     */
+    private int compare(int i, int j) {
+        int result = Integer.compare(
+                candidates[i].getSortCategory().ordinal(), candidates[j].getSortCategory().ordinal());
+        if (result != 0) {
+            return result;
+        }
+        result = Integer.compare(matchLevels[j].ordinal(), matchLevels[i].ordinal());
+        if (result != 0) {
+            return result;
+        }
+        result = Integer.compare(usages[j], usages[i]);
+        if (result != 0) {
+            return result;
+        }
+        result = names[i].getName().compareTo(names[j].getName());
+        if (result != 0) {
+            return result;
+        }
+        return Integer.compare(i, j);
+    }
+}
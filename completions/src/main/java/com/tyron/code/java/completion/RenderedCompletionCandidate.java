@@ -0,0 +1,95 @@
+package com.tyron.code.java.completion;
+
+import com.tyron.code.java.model.ResolveAction;
+import com.tyron.code.java.model.ResolveActionParams;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A copy of the text of another candidate, which does not keep the javac symbols the original
+ * candidate was rendered from. Only for candidates whose text does not depend on the
+ * {@link TextEditOptions}.
+ */
+final class RenderedCompletionCandidate implements CompletionCandidate {
+    private final String name;
+    private final Optional<String> nameDescription;
+    private final Kind kind;
+    private final Optional<String> detail;
+    private final Optional<String> insertPlainText;
+    private final Optional<String> insertSnippet;
+    private final SortCategory sortCategory;
+    private final Map<ResolveAction, ResolveActionParams> resolveActions;
+    private final CandidateName candidateName;
+
+    static RenderedCompletionCandidate of(CompletionCandidate candidate) {
+        return new RenderedCompletionCandidate(candidate);
+    }
+
+    private RenderedCompletionCandidate(CompletionCandidate candidate) {
+        this.name = candidate.getName();
+        this.nameDescription = candidate.getNameDescription();
+        this.kind = candidate.getKind();
+        this.detail = candidate.getDetail();
+        this.insertPlainText = candidate.getInsertPlainText(TextEditOptions.DEFAULT);
+        this.insertSnippet = candidate.getInsertSnippet(TextEditOptions.DEFAULT);
+        this.sortCategory = candidate.getSortCategory();
+        this.resolveActions = candidate.getResolveActions();
+        this.candidateName = CandidateName.of(name);
+    }
+
+    /**
+     * @return the name prepared for matching, computed once since rendered candidates are cached
+     */
+    CandidateName getCandidateName() {
+        return candidateName;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Optional<String> getNameDescription() {
+        return nameDescription;
+    }
+
+    @Override
+    public Kind getKind() {
+        return kind;
+    }
+
+    @Override
+    public Optional<String> getDetail() {
+        return detail;
+    }
+
+    @Override
+    public Optional<String> getInsertPlainText(TextEditOptions textEditOptions) {
+        return insertPlainText;
+    }
+
+    @Override
+    public Optional<String> getInsertSnippet(TextEditOptions textEditOptions) {
+        return insertSnippet;
+    }
+
+    @Override
+    public SortCategory getSortCategory() {
+        return sortCategory;
+    }
+
+    @Override
+    public Map<ResolveAction, ResolveActionParams> getResolveActions() {
+        return resolveActions;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderedCompletionCandidate{" +
+                "name='" + name + '\'' +
+                ", kind=" + kind +
+                '}';
+    }
+}
@@ -2,8 +2,6 @@ package com.tyron.code.java.parsing;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableSet;
-import shadow.com.sun.tools.javac.parser.Scanner;
-import shadow.com.sun.tools.javac.parser.Tokens.Token;
 import shadow.com.sun.tools.javac.parser.Tokens.TokenKind;
 import shadow.com.sun.tools.javac.util.Position.LineMap;
 import java.util.ArrayList;
@@ -32,52 +30,58 @@ public class FileContentFixer {
     }
 
     public FixedContent fixFileContent(CharSequence content) {
-        Scanner scanner = parserContext.tokenize(content, false /* keepDocComments */);
+        return fixFileContent(JavaTokens.lex(parserContext, content));
+    }
+
+    /**
+     * Fixes the content of already lexed tokens, see {@link JavaTokens#relex} to lex the content
+     * after an edit.
+     */
+    public FixedContent fixFileContent(JavaTokens tokens) {
+        String content = tokens.getContent();
         List<Insertion> insertions = new ArrayList<>();
-        for (; ; scanner.nextToken()) {
-            Token token = scanner.token();
-            if (token.kind == TokenKind.EOF) {
+        for (int i = 0; i < tokens.size(); i++) {
+            TokenKind kind = tokens.getKind(i);
+            if (kind == TokenKind.EOF) {
                 break;
-            } else if (token.kind == TokenKind.DOT || token.kind == TokenKind.COLCOL) {
-                fixMemberSelection(scanner, insertions);
-            } else if (token.kind == TokenKind.ERROR) {
-                int errPos = scanner.errPos();
+            } else if (kind == TokenKind.DOT || kind == TokenKind.COLCOL) {
+                fixMemberSelection(tokens, i, insertions);
+            } else if (kind == TokenKind.ERROR) {
+                int errPos = tokens.getErrorPosition(i);
                 if (errPos >= 0 && errPos < content.length()) {
-                    fixError(scanner, content, insertions);
+                    fixError(errPos, content, insertions);
                 }
             }
         }
 
         CharSequence modifiedContent = Insertion.applyInsertions(content, insertions);
         return FixedContent.create(
-                modifiedContent, createAdjustedLineMap(scanner.getLineMap(), insertions));
+                modifiedContent, createAdjustedLineMap(tokens.getLineMap(), insertions));
     }
 
-    private void fixMemberSelection(Scanner scanner, List<Insertion> insertions) {
-        Token token = scanner.token();
-        Token nextToken = scanner.token(1);
+    private void fixMemberSelection(JavaTokens tokens, int index, List<Insertion> insertions) {
+        int next = index + 1;
 
-        LineMap lineMap = scanner.getLineMap();
-        int tokenLine = lineMap.getLineNumber(token.pos);
-        int nextLine = lineMap.getLineNumber(nextToken.pos);
+        LineMap lineMap = tokens.getLineMap();
+        long tokenLine = lineMap.getLineNumber(tokens.getPosition(index));
+        long nextLine = lineMap.getLineNumber(tokens.getPosition(next));
 
         if (nextLine > tokenLine) {
             // The line ends with a dot. It's likely the user is entering a dot and waiting for member
             // completion. The current line is incomplete and syntextually invalid.
-            insertions.add(Insertion.create(token.endPos, "dumbIdent;"));
-        } else if (!VALID_MEMBER_SELECTION_TOKENS.contains(nextToken.kind)) {
+            insertions.add(Insertion.create(tokens.getEndPosition(index), "dumbIdent;"));
+        } else if (!VALID_MEMBER_SELECTION_TOKENS.contains(tokens.getKind(next))) {
             String toInsert = "dumbIdent";
-            if (INVALID_MEMBER_SELECTION_SUFFIXES.contains(nextToken.kind)) {
+            if (INVALID_MEMBER_SELECTION_SUFFIXES.contains(tokens.getKind(next))) {
                 toInsert = "dumbIdent;";
             }
 
             // The member selection is syntextually invalid. Fix it.
-            insertions.add(Insertion.create(token.endPos, toInsert));
+            insertions.add(Insertion.create(tokens.getEndPosition(index), toInsert));
         }
     }
 
-    private void fixError(Scanner scanner, CharSequence content, List<Insertion> insertions) {
-        int errPos = scanner.errPos();
+    private void fixError(int errPos, CharSequence content, List<Insertion> insertions) {
         if (content.charAt(errPos) == '.' && errPos > 0 && content.charAt(errPos) == '.') {
             // The scanner fails at two dots because it expects three dots for
             // ellipse. The errPos is at the second dot.
@@ -0,0 +1,270 @@
+package com.tyron.code.java.parsing;
+
+import shadow.com.sun.tools.javac.parser.Scanner;
+import shadow.com.sun.tools.javac.parser.Tokens.Token;
+import shadow.com.sun.tools.javac.parser.Tokens.TokenKind;
+import shadow.com.sun.tools.javac.util.Position;
+import shadow.com.sun.tools.javac.util.Position.LineMap;
+
+import java.util.Arrays;
+
+/**
+ * The tokens of the content of a Java file, as lexed by the javac {@link Scanner}, without comments.
+ * The last token is always {@link TokenKind#EOF}.
+ *
+ * <p>{@link #relex(ParserContext, CharSequence)} lexes the content of the file after an edit. The
+ * tokens before the edit and the tokens after the edit are reused: lexing starts one token before
+ * the first token touching the edit, since the scanner decides where a token ends by looking at the
+ * characters after it, and stops at the first token after the edit that starts where a token of
+ * the previous content started. The scanner keeps no state between tokens, so from there on the
+ * tokens are the previous ones, moved by the length difference. Only the edited region is lexed,
+ * in windows of {@link #MIN_WINDOW} characters or more.
+ *
+ * <p>Instances are immutable, the same instance can be relexed more than once.
+ */
+public final class JavaTokens {
+
+    static final int MIN_WINDOW = 4096;
+
+    /**
+     * A token ending this close to the end of a window may have been cut off by the window, it is
+     * lexed again in a larger window.
+     */
+    private static final int WINDOW_MARGIN = 4;
+
+    private final String content;
+    private final int count;
+    private final TokenKind[] kinds;
+    private final int[] positions;
+    private final int[] endPositions;
+    /** The error position of an {@link TokenKind#ERROR} token, {@code -1} for the others. */
+    private final int[] errorPositions;
+    private volatile LineMap lineMap;
+
+    private JavaTokens(String content, int count, TokenKind[] kinds, int[] positions, int[] endPositions, int[] errorPositions) {
+        this.content = content;
+        this.count = count;
+        this.kinds = kinds;
+        this.positions = positions;
+        this.endPositions = endPositions;
+        this.errorPositions = errorPositions;
+    }
+
+    /**
+     * Lexes the whole content.
+     */
+    public static JavaTokens lex(ParserContext parserContext, CharSequence content) {
+        String text = content.toString();
+        Builder builder = new Builder(text, 256);
+        builder.lex(parserContext, 0, text.length(), 0, null, 0, 0);
+        return builder.build();
+    }
+
+    /**
+     * @return the tokens of {@code newContent}, lexing only the region that differs from the content
+     * of these tokens
+     */
+    public JavaTokens relex(ParserContext parserContext, CharSequence newContent) {
+        String text = newContent.toString();
+        int oldLength = content.length();
+        int newLength = text.length();
+        int prefix = 0;
+        int maxPrefix = Math.min(oldLength, newLength);
+        while (prefix < maxPrefix && content.charAt(prefix) == text.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == oldLength && prefix == newLength) {
+            return this;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && content.charAt(oldLength - suffix - 1) == text.charAt(newLength - suffix - 1)) {
+            suffix++;
+        }
+        int oldEditEnd = oldLength - suffix;
+        int newEditEnd = newLength - suffix;
+        int delta = newLength - oldLength;
+
+        // keep the tokens ending before the edit except the last one
+        int before = lowerBound(endPositions, count, prefix);
+        int keep = Math.max(0, before - 1);
+        int restart = keep == 0 ? 0 : endPositions[keep - 1];
+
+        // the first previous token that may start a run of unchanged tokens
+        int resync = lowerBound(positions, count, oldEditEnd);
+
+        int window = Math.max(MIN_WINDOW, 2 * (newEditEnd - restart));
+        while (true) {
+            Builder builder = new Builder(text, count + 16);
+            builder.copy(this, 0, keep, 0);
+            int windowEnd = (int) Math.min((long) restart + window, newLength);
+            int next = builder.lex(parserContext, restart, windowEnd, newEditEnd, this, resync, delta);
+            if (next >= 0) {
+                builder.copy(this, next, count, delta);
+                return builder.build();
+            }
+            if (next == Builder.DONE) {
+                return builder.build();
+            }
+            window *= 2;
+        }
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    /**
+     * @return the number of tokens, including the {@link TokenKind#EOF} token
+     */
+    public int size() {
+        return count;
+    }
+
+    public TokenKind getKind(int index) {
+        return kinds[checkIndex(index)];
+    }
+
+    public int getPosition(int index) {
+        return positions[checkIndex(index)];
+    }
+
+    public int getEndPosition(int index) {
+        return endPositions[checkIndex(index)];
+    }
+
+    /**
+     * @return where the scanner reported the error of an {@link TokenKind#ERROR} token, or
+     * {@code -1} for other tokens
+     */
+    public int getErrorPosition(int index) {
+        return errorPositions[checkIndex(index)];
+    }
+
+    public LineMap getLineMap() {
+        LineMap lineMap = this.lineMap;
+        if (lineMap == null) {
+            char[] chars = content.toCharArray();
+            lineMap = this.lineMap = Position.makeLineMap(chars, chars.length, false);
+        }
+        return lineMap;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the first value greater than or equal to {@code key}
+     */
+    private static int lowerBound(int[] values, int size, int key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Builder {
+
+        /** Lexing reached the end of the content. */
+        static final int DONE = -1;
+        /** Lexing reached the end of the window, it has to be lexed again in a larger window. */
+        static final int WINDOW_TOO_SMALL = -2;
+
+        private final String content;
+        private int count;
+        private TokenKind[] kinds;
+        private int[] positions;
+        private int[] endPositions;
+        private int[] errorPositions;
+
+        Builder(String content, int capacity) {
+            this.content = content;
+            this.kinds = new TokenKind[capacity];
+            this.positions = new int[capacity];
+            this.endPositions = new int[capacity];
+            this.errorPositions = new int[capacity];
+        }
+
+        /**
+         * Lexes {@code content} from {@code start} up to {@code end}, until a token at or after
+         * {@code editEnd} starts where a token of {@code previous} started, moved by {@code delta}.
+         * Without {@code previous} the content is lexed up to {@code end}.
+         *
+         * @param resync the index of the first token of {@code previous} to compare against
+         * @return the index of the first token of {@code previous} that can be reused,
+         * {@link #DONE} or {@link #WINDOW_TOO_SMALL}
+         */
+        int lex(ParserContext parserContext, int start, int end, int editEnd, JavaTokens previous, int resync, int delta) {
+            int length = end - start;
+            // the scanner may need room for a sentinel after the input
+            char[] chars = new char[length + 1];
+            content.getChars(start, end, chars, 0);
+            Scanner scanner = parserContext.tokenize(chars, length, false /* keepDocComments */);
+            boolean atEnd = end == content.length();
+            // the scanner starts at a dummy token
+            for (scanner.nextToken(); ; scanner.nextToken()) {
+                Token token = scanner.token();
+                int pos = token.pos + start;
+                int endPos = token.endPos + start;
+                if (!atEnd && (token.kind == TokenKind.EOF || endPos > end - WINDOW_MARGIN)) {
+                    return WINDOW_TOO_SMALL;
+                }
+                if (previous != null && pos >= editEnd && token.kind != TokenKind.EOF) {
+                    while (resync < previous.count && previous.positions[resync] + delta < pos) {
+                        resync++;
+                    }
+                    if (resync < previous.count
+                            && previous.positions[resync] + delta == pos
+                            && previous.kinds[resync] == token.kind) {
+                        return resync;
+                    }
+                }
+                int errorPos = token.kind == TokenKind.ERROR && scanner.errPos() >= 0 ? scanner.errPos() + start : -1;
+                add(token.kind, pos, endPos, errorPos);
+                if (token.kind == TokenKind.EOF) {
+                    return DONE;
+                }
+            }
+        }
+
+        void copy(JavaTokens tokens, int from, int to, int delta) {
+            for (int i = from; i < to; i++) {
+                int errorPos = tokens.errorPositions[i];
+                add(tokens.kinds[i],
+                        tokens.positions[i] + delta,
+                        tokens.endPositions[i] + delta,
+                        errorPos < 0 ? errorPos : errorPos + delta);
+            }
+        }
+
+        private void add(TokenKind kind, int pos, int endPos, int errorPos) {
+            if (count == kinds.length) {
+                int capacity = count * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                positions = Arrays.copyOf(positions, capacity);
+                endPositions = Arrays.copyOf(endPositions, capacity);
+                errorPositions = Arrays.copyOf(errorPositions, capacity);
+            }
+            kinds[count] = kind;
+            positions[count] = pos;
+            endPositions[count] = endPos;
+            errorPositions[count] = errorPos;
+            count++;
+        }
+
+        JavaTokens build() {
+            return new JavaTokens(content, count, kinds, positions, endPositions, errorPositions);
+        }
+    }
+}
@@ -1,34 +1,70 @@
 package com.tyron.code.java.parsing;
 
-import shadow.com.sun.source.tree.MethodTree;
 import shadow.com.sun.tools.javac.tree.JCTree;
-import shadow.com.sun.tools.javac.tree.TreeMaker;
 import shadow.com.sun.tools.javac.tree.TreeTranslator;
-import shadow.com.sun.tools.javac.util.Context;
 import shadow.com.sun.tools.javac.util.List;
 
+/**
+ * Reduces a compilation unit to its member signatures by emptying method bodies in place.
+ *
+ * <p>When created with a retained position, the method, initializer block or lambda body that
+ * contains the position keeps its statements, so attributing the unit only attributes the class
+ * skeleton and the code around that position. Trees keep their positions, the pruned unit can be
+ * attributed in place of the original one.
+ */
 public class MethodBodyPruner extends TreeTranslator {
 
-    private final TreeMaker treeMaker;
+    private final long retainedPosition;
+
     public MethodBodyPruner() {
-        treeMaker = TreeMaker.instance(new Context());
+        this(-1);
+    }
+
+    /**
+     * @param retainedPosition the position whose enclosing body should be kept, or {@code -1} to
+     *                         prune every method body
+     */
+    public MethodBodyPruner(long retainedPosition) {
+        this.retainedPosition = retainedPosition;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public <T extends JCTree> T translate(T tree) {
         if (tree instanceof JCTree.JCMethodDecl decl) {
-            return (T) treeMaker.MethodDef(
-                    decl.mods,
-                    decl.name,
-                    decl.restype,
-                    decl.typarams,
-                    decl.params,
-                    decl.thrown,
-                    treeMaker.Block(0, List.nil()),
-                    decl.defaultValue
-            );
+            pruneUnlessRetained(decl.body);
+            return tree;
         }
         return super.translate(tree);
     }
+
+    @Override
+    public void visitClassDef(JCTree.JCClassDecl tree) {
+        if (retainedPosition >= 0) {
+            for (JCTree def : tree.defs) {
+                if (def instanceof JCTree.JCBlock initializer) {
+                    pruneUnlessRetained(initializer);
+                }
+            }
+        }
+        super.visitClassDef(tree);
+    }
+
+    @Override
+    public void visitLambda(JCTree.JCLambda tree) {
+        if (retainedPosition >= 0 && tree.body instanceof JCTree.JCBlock body) {
+            pruneUnlessRetained(body);
+        }
+        super.visitLambda(tree);
+    }
+
+    private void pruneUnlessRetained(JCTree.JCBlock body) {
+        if (body == null) {
+            return;
+        }
+        if (retainedPosition >= 0 && body.pos <= retainedPosition && retainedPosition <= body.endpos) {
+            return;
+        }
+        body.stats = List.nil();
+    }
 }
@@ -61,4 +61,11 @@ public class ParserContext {
     public Scanner tokenize(CharSequence content, boolean keepDocComments) {
         return ScannerFactory.instance(javacContext).newScanner(content, keepDocComments);
     }
+
+    /**
+     * @param length the number of characters of {@code content} to tokenize
+     */
+    public Scanner tokenize(char[] content, int length, boolean keepDocComments) {
+        return ScannerFactory.instance(javacContext).newScanner(content, length, keepDocComments);
+    }
 }
@@ -0,0 +1,233 @@
+package com.tyron.code.java.parsing;
+
+import com.tyron.code.project.file.FileChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The signature stubs of source files that are not open, their content with the method bodies
+ * removed by {@link MethodBodyPruner}, so a file that javac reads from the source path is parsed
+ * and pruned once instead of on every analysis.
+ *
+ * <p>A stub is keyed by the path of the file and stamped with its modification time and size. A
+ * stub is served while both are unchanged. Stubs are kept in
+ * memory up to {@link #MAX_MEMORY_CHARS} characters, least recently used first out. A persisted
+ * cache also writes every stub to a file of its directory on a background thread, and reads stubs
+ * from there that are not in memory, so stubs outlive the process.
+ *
+ * <p>The cache is a {@link FileChangeListener}: a change event for a file drops its stub.
+ */
+public class SignatureStubCache implements FileChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignatureStubCache.class);
+
+    private static final int MAGIC = 0x53545542;
+    private static final int FORMAT_VERSION = 2;
+
+    static final long MAX_MEMORY_CHARS = 16 << 20;
+
+    private static final Map<Path, SignatureStubCache> PERSISTED = new ConcurrentHashMap<>();
+
+    private record Entry(long modifiedTime, long size, String stub) {
+
+        boolean matches(long modifiedTime, long size) {
+            return this.modifiedTime == modifiedTime && this.size == size;
+        }
+    }
+
+    private final Path directory;
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryChars;
+    private final ExecutorService writer;
+
+    /**
+     * @return a cache that is not saved
+     */
+    public static SignatureStubCache inMemory() {
+        return new SignatureStubCache(null);
+    }
+
+    /**
+     * @return the cache saved in {@code directory}, shared by everyone using the same directory
+     */
+    public static SignatureStubCache persisted(Path directory) {
+        return PERSISTED.computeIfAbsent(directory.toAbsolutePath().normalize(), SignatureStubCache::new);
+    }
+
+    private SignatureStubCache(Path directory) {
+        this.directory = directory;
+        if (directory == null) {
+            this.writer = null;
+        } else {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "Signature Stubs");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            this.writer = executor;
+        }
+    }
+
+    /**
+     * @param modifiedTime the current modification time of the file in milliseconds
+     * @param size         the current size of the file in bytes
+     * @param stub         computes the stub of the current content, returns {@code null} if the
+     *                     file can not be read
+     * @return the stub of the file, or {@code null} if it could not be computed
+     */
+    public String get(Path path, long modifiedTime, long size, Supplier<String> stub) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(path);
+        }
+        if (entry == null && directory != null) {
+            entry = read(path);
+            if (entry != null && entry.matches(modifiedTime, size)) {
+                put(path, entry);
+            }
+        }
+        if (entry != null && entry.matches(modifiedTime, size)) {
+            return entry.stub();
+        }
+
+        String computed = stub.get();
+        if (computed == null) {
+            return null;
+        }
+        Entry computedEntry = new Entry(modifiedTime, size, computed);
+        put(path, computedEntry);
+        if (directory != null) {
+            writer.execute(() -> write(path, computedEntry));
+        }
+        return computed;
+    }
+
+    /**
+     * Drops the stub of a file.
+     */
+    public void invalidate(Path path) {
+        synchronized (this) {
+            Entry removed = entries.remove(path);
+            if (removed != null) {
+                memoryChars -= removed.stub().length();
+            }
+        }
+        if (directory != null) {
+            writer.execute(() -> {
+                try {
+                    Files.deleteIfExists(getStubFile(path));
+                } catch (IOException e) {
+                    logger.warn("Failed to delete the signature stub of {}", path, e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onFileChange(Path filePath, WatchEvent.Kind<?> eventKind) {
+        invalidate(filePath);
+    }
+
+    /**
+     * Waits for the pending writes, for tests.
+     */
+    void awaitWrites() throws Exception {
+        if (writer != null) {
+            writer.submit(() -> {}).get();
+        }
+    }
+
+    /**
+     * Forgets the stubs held in memory, for tests.
+     */
+    synchronized void clearMemory() {
+        entries.clear();
+        memoryChars = 0;
+    }
+
+    private synchronized void put(Path path, Entry entry) {
+        Entry previous = entries.put(path, entry);
+        if (previous != null) {
+            memoryChars -= previous.stub().length();
+        }
+        memoryChars += entry.stub().length();
+        var iterator = entries.values().iterator();
+        while (memoryChars > MAX_MEMORY_CHARS && iterator.hasNext()) {
+            memoryChars -= iterator.next().stub().length();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * The stub of a file is saved in a file named after the file and the hash of its path. The
+     * path is saved as well, two files with the same name and hash replace each other.
+     */
+    private Path getStubFile(Path path) {
+        return directory.resolve(path.getFileName() + "-" + Integer.toHexString(path.toString().hashCode()) + ".stub");
+    }
+
+    private Entry read(Path path) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(getStubFile(path))))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(path.toString())) {
+                return null;
+            }
+            long modifiedTime = in.readLong();
+            long size = in.readLong();
+            byte[] stub = new byte[in.readInt()];
+            in.readFully(stub);
+            return new Entry(modifiedTime, size, new String(stub, StandardCharsets.UTF_8));
+        } catch (NoSuchFileException ignored) {
+            // not cached yet
+        } catch (IOException e) {
+            logger.warn("Failed to read the signature stub of {}", path, e);
+        }
+        return null;
+    }
+
+    private void write(Path path, Entry entry) {
+        Path file = getStubFile(path);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                byte[] stub = entry.stub().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(path.toString());
+                out.writeLong(entry.modifiedTime());
+                out.writeLong(entry.size());
+                out.writeInt(stub.length);
+                out.write(stub);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to save the signature stub of {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.tyron.code.java.analysis;
+
+import com.google.common.truth.Truth;
+import com.tyron.code.java.completion.BaseCompletionTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import shadow.com.sun.tools.javac.api.JavacTaskImpl;
+import shadow.com.sun.tools.javac.util.Context;
+import shadow.javax.tools.Diagnostic;
+import shadow.javax.lang.model.element.Element;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AnalysisSessionTest extends BaseCompletionTest {
+
+    @Test
+    public void testSessionIsSharedUntilLastRelease() {
+        AnalysisSession first = AnalysisSession.acquire(fileManager, rootModule);
+        AnalysisSession second = AnalysisSession.acquire(fileManager, rootModule);
+        Truth.assertThat(second).isSameInstanceAs(first);
+
+        first.release();
+        AnalysisSession third = AnalysisSession.acquire(fileManager, rootModule);
+        Truth.assertThat(third).isSameInstanceAs(first);
+
+        second.release();
+        third.release();
+        // the analyzer of the base test still holds a reference
+        AnalysisSession fourth = AnalysisSession.acquire(fileManager, rootModule);
+        Truth.assertThat(fourth).isSameInstanceAs(first);
+        fourth.release();
+    }
+
+    @Test
+    public void testCancellationStopsAttributionBetweenMethods() throws Exception {
+        Path file = Paths.get("Main.java");
+        StringBuilder contents = new StringBuilder("class Main {\n");
+        for (int i = 0; i < 200; i++) {
+            contents.append("    int method").append(i).append("() { return ").append(i).append("; }\n");
+        }
+        contents.append("    int last() { return \"\"; }\n");
+        contents.append("}\n");
+
+        AnalysisSession session = AnalysisSession.acquire(fileManager, rootModule);
+        try {
+            Context warm = session.analyze(file, contents + "\n", -1, diagnostic -> {}, () -> {},
+                    analysis -> analysis.task().getContext());
+
+            AtomicInteger checks = new AtomicInteger();
+            Runnable cancelAfterTenChecks = () -> {
+                if (checks.incrementAndGet() > 10) {
+                    throw new CancellationException();
+                }
+            };
+            Assertions.assertThrows(CancellationException.class, () ->
+                    session.analyze(file, contents.toString(), -1, diagnostic -> {}, cancelAfterTenChecks, AnalysisSession.Analysis::analyzed));
+            // stopped long before attributing every method
+            Truth.assertThat(checks.get()).isLessThan(200);
+
+            // the context was stopped between methods, it is reused and still gives correct results
+            List<Diagnostic<?>> diagnostics = new ArrayList<>();
+            Context reused = session.analyze(file, contents.toString(), -1, diagnostics::add, () -> {},
+                    analysis -> analysis.task().getContext());
+            Truth.assertThat(reused).isSameInstanceAs(warm);
+            Truth.assertThat(diagnostics).hasSize(1);
+            Truth.assertThat(diagnostics.get(0).getLineNumber()).isEqualTo(202L);
+        } finally {
+            session.release();
+        }
+    }
+
+    @Test
+    public void testRepeatedRequestReusesAnalysis() throws Exception {
+        Path file = Paths.get("Main.java");
+        String contents = """
+                class Main {
+                    int value = "";
+                }
+                """;
+
+        AnalysisSession session = AnalysisSession.acquire(fileManager, rootModule);
+        try {
+            List<Object> diagnostics = new ArrayList<>();
+            JavacTaskImpl first = session.analyze(file, contents, -1, diagnostics::add, () -> {}, AnalysisSession.Analysis::task);
+            JavacTaskImpl second = session.analyze(file, contents, -1, diagnostics::add, () -> {}, AnalysisSession.Analysis::task);
+            Truth.assertThat(second).isSameInstanceAs(first);
+            // the diagnostics of the retained analysis are reported again
+            Truth.assertThat(diagnostics).hasSize(2);
+
+            // a full analysis also serves requests for a single member
+            JavacTaskImpl partial = session.analyze(file, contents, contents.indexOf("value"), diagnostic -> {}, () -> {}, AnalysisSession.Analysis::task);
+            Truth.assertThat(partial).isSameInstanceAs(first);
+
+            JavacTaskImpl changed = session.analyze(file, contents + "\n", -1, diagnostic -> {}, () -> {}, AnalysisSession.Analysis::task);
+            Truth.assertThat(changed).isNotSameInstanceAs(first);
+
+            session.invalidate(file);
+            JavacTaskImpl invalidated = session.analyze(file, contents + "\n", -1, diagnostic -> {}, () -> {}, AnalysisSession.Analysis::task);
+            Truth.assertThat(invalidated).isNotSameInstanceAs(changed);
+        } finally {
+            session.release();
+        }
+    }
+}
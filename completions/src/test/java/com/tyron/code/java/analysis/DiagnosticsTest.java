@@ -0,0 +1,60 @@
+package com.tyron.code.java.analysis;
+
+import com.google.common.truth.Truth;
+import com.tyron.code.diagnostic.FileDiagnostics;
+import com.tyron.code.java.completion.BaseCompletionTest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public class DiagnosticsTest extends BaseCompletionTest {
+
+    private static final String BROKEN = """
+            class Main {
+                void main() {
+                    int value = "";
+                }
+            }
+            """;
+
+    private static final String FIXED = """
+            class Main {
+                void main() {
+                    int value = 0;
+                }
+            }
+            """;
+
+    @Test
+    public void testOnlyChangesArePublished() {
+        Path file = Paths.get("Main.java").toAbsolutePath();
+        List<FileDiagnostics.Delta> deltas = new CopyOnWriteArrayList<>();
+        Consumer<FileDiagnostics.Delta> listener = deltas::add;
+        analyzer.addDiagnosticsListener(listener);
+        try {
+            FileDiagnostics first = analyzer.submitDiagnostics(file, BROKEN, 1).join();
+            Truth.assertThat(first.version()).isEqualTo(1L);
+            Truth.assertThat(first.diagnostics()).hasSize(1);
+
+            // same diagnostics, nothing to push
+            analyzer.submitDiagnostics(file, BROKEN, 2).join();
+
+            FileDiagnostics fixed = analyzer.submitDiagnostics(file, FIXED, 3).join();
+            Truth.assertThat(fixed.diagnostics()).isEmpty();
+
+            // a result for an older version must not replace a newer one
+            FileDiagnostics stale = analyzer.submitDiagnostics(file, BROKEN, 1).join();
+            Truth.assertThat(stale.version()).isEqualTo(3L);
+
+            Truth.assertThat(deltas).hasSize(2);
+            Truth.assertThat(deltas.get(0).added()).hasSize(1);
+            Truth.assertThat(deltas.get(1).removed()).isEqualTo(deltas.get(0).added());
+        } finally {
+            analyzer.removeDiagnosticsListener(listener);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tyron.code.java.analysis;
+
+import com.google.common.truth.Truth;
+import com.tyron.code.java.analysis.AnalysisScheduler.Priority;
+import com.tyron.code.java.completion.BaseCompletionTest;
+import org.junit.jupiter.api.Test;
+import shadow.com.sun.source.tree.ClassTree;
+import shadow.com.sun.source.tree.MethodTree;
+import shadow.com.sun.source.tree.Tree;
+
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class PartialAnalysisTest extends BaseCompletionTest {
+
+    @Test
+    public void testOnlyEnclosingMethodIsAttributed() {
+        String contents = """
+                class Main {
+                    int first() {
+                        String text = "";
+                        return text.length();
+                    }
+
+                    void second() {
+                        int value = 1;
+                        value++;
+                    }
+                }
+                """;
+        int position = contents.indexOf("value++");
+
+        Map<String, Integer> statementCounts = analyzer.submitPartial(Priority.INTERACTIVE, Paths.get("Main.java"), contents, position, result -> {
+            Truth.assertThat(result.partial()).isTrue();
+            ClassTree main = (ClassTree) result.parsedTree().getTypeDecls().get(0);
+            return main.getMembers().stream()
+                    .filter(it -> it.getKind() == Tree.Kind.METHOD)
+                    .map(it -> (MethodTree) it)
+                    .filter(it -> !it.getName().contentEquals("<init>"))
+                    .collect(Collectors.toMap(it -> it.getName().toString(), it -> it.getBody().getStatements().size()));
+        }).join();
+
+        Truth.assertThat(statementCounts).containsExactly("first", 0, "second", 2);
+    }
+}
@@ -0,0 +1,53 @@
+package com.tyron.code.java.analysis;
+
+import com.google.common.truth.Truth;
+import com.tyron.code.diagnostic.FileDiagnostics;
+import com.tyron.code.info.builder.SourceClassInfoBuilder;
+import com.tyron.code.java.completion.BaseCompletionTest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class WorkspaceAnalyzerTest extends BaseCompletionTest {
+
+    @Test
+    public void testDiagnosticsAreReportedPerFile() throws Exception {
+        Path broken = addSourceFile("test/Broken.java", """
+                package test;
+                class Broken {
+                    int value = new Fine().name();
+                }
+                """);
+        Path fine = addSourceFile("test/Fine.java", """
+                package test;
+                class Fine {
+                    String name() {
+                        return "fine";
+                    }
+                }
+                """);
+
+        List<FileDiagnostics> reported = new CopyOnWriteArrayList<>();
+        Map<Path, FileDiagnostics> results;
+        try (WorkspaceAnalyzer workspaceAnalyzer = new WorkspaceAnalyzer(fileManager, 2)) {
+            results = workspaceAnalyzer.analyzeAll(moduleManager.getRootModule(), reported::add).join();
+        }
+
+        Truth.assertThat(reported).hasSize(2);
+        Truth.assertThat(results.keySet()).containsExactly(broken, fine);
+        Truth.assertThat(results.get(broken).diagnostics()).hasSize(1);
+        Truth.assertThat(results.get(fine).diagnostics()).isEmpty();
+    }
+
+    private Path addSourceFile(String relativePath, String contents) throws Exception {
+        Path path = rootModule.getSourceDirectory().resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, contents);
+        rootModule.addClass(new SourceClassInfoBuilder(path).build());
+        return path;
+    }
+}
@@ -1,12 +1,22 @@
 package com.tyron.code.java.completion;
 
 import com.google.common.truth.Truth;
+import com.tyron.code.info.ClassInfo;
+import com.tyron.code.info.ClassNameIndex;
+import com.tyron.code.info.SourceClassInfo;
+import com.tyron.code.info.builder.SourceClassInfoBuilder;
 import com.tyron.code.java.model.ResolveAction;
 import com.tyron.code.java.model.ResolveActionParams;
 import com.tyron.code.java.model.ResolveAddImportTextEditsParams;
+import com.tyron.code.project.util.ModuleUtils;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class AutoImportCompletionTest extends BaseCompletionTest {
 
@@ -30,4 +40,80 @@ public class AutoImportCompletionTest extends BaseCompletionTest {
         }
     }
 
+    @Test
+    public void testClassesArePublishedBeforeAnalysis() throws Exception {
+        String text = """
+                class Main {
+                    public static void main(String[] args) {
+                        ArLi
+                    }
+                }
+                """;
+        Path file = Files.createTempFile("", ".java");
+        Files.writeString(file, text);
+        fileManager.setSnapshotContent(file.toUri(), text);
+
+        List<CompletionResult> partialResults = new ArrayList<>();
+        CompletableFuture<CompletionResult> future = completor.getCompletionResultAsync(file, 2, 12, partialResults::add);
+
+        Truth.assertThat(partialResults).hasSize(1);
+        CompletionResult partial = partialResults.get(0);
+        Truth.assertThat(partial.isIncomplete()).isTrue();
+        List<String> partialNames = partial.getCompletionCandidates().stream().map(CompletionCandidate::getName).toList();
+        Truth.assertThat(partialNames).contains("ArrayList");
+
+        List<String> names = future.join().getCompletionCandidates().stream().map(CompletionCandidate::getName).toList();
+        Truth.assertThat(names).containsAtLeast(partialNames.toArray());
+    }
+
+    @Test
+    public void testCamelHumpClassCompletion() {
+        String text = """
+                class Main {
+                    public static void main(String[] args) {
+                        ArLi@complete
+                    }
+                }
+                """;
+        List<CompletionCandidate> complete = complete(text);
+        Truth.assertThat(complete.stream().map(CompletionCandidate::getName).toList()).contains("ArrayList");
+    }
+
+    @Test
+    public void testClassNameIndexRanksPrefixMatchesFirst() {
+        var matches = rootModule.getJdkModule().getClassNameIndex().search("Strin", 3);
+        Truth.assertThat(matches).hasSize(3);
+        Truth.assertThat(matches.get(0).classInfo().getName()).isEqualTo("java/lang/String");
+        Truth.assertThat(matches.get(0).kind()).isEqualTo(ClassNameIndex.MatchKind.PREFIX);
+        Truth.assertThat(matches.get(1).classInfo().getSimpleName()).isEqualTo("StringBuffer");
+    }
+
+    @Test
+    @Timeout(5)
+    public void testClassNameIndexCamelHumpOfLongNames() {
+        ClassNameIndex<SourceClassInfo> index = new ClassNameIndex<>();
+        // every letter of an all-caps name starts a word, so the query can be split many ways
+        for (String simpleName : List.of("A".repeat(40), "A".repeat(100), "A".repeat(20) + "Bean")) {
+            index.add(new SourceClassInfoBuilder()
+                    .withPath(Path.of(simpleName + ".java"))
+                    .withName("test/" + simpleName)
+                    .withSourceFileName(simpleName)
+                    .build());
+        }
+
+        var matches = index.search("A".repeat(17) + "AABe", 10);
+        Truth.assertThat(matches).hasSize(1);
+        Truth.assertThat(matches.get(0).classInfo().getSimpleName()).isEqualTo("A".repeat(20) + "Bean");
+        Truth.assertThat(matches.get(0).kind()).isEqualTo(ClassNameIndex.MatchKind.CAMEL_HUMP);
+        Truth.assertThat(index.search("A".repeat(17) + "X", 10)).isEmpty();
+    }
+
+    @Test
+    public void testClassesAreFoundBySimpleName() {
+        var names = ModuleUtils.findClassesBySimpleName(rootModule, "Date").stream()
+                .map(ClassInfo::getName)
+                .toList();
+        Truth.assertThat(names).containsAtLeast("java/util/Date", "java/sql/Date");
+        Truth.assertThat(ModuleUtils.findClassesBySimpleName(rootModule, "Dat")).isEmpty();
+    }
 }
@@ -1,10 +1,15 @@
 package com.tyron.code.java.completion;
 
 import com.google.common.truth.Truth;
+import com.tyron.code.java.analysis.AnalysisScheduler.Priority;
+import com.tyron.code.java.analysis.Analyzer;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -13,38 +18,78 @@ public class CancellationTest extends BaseCompletionTest {
 
     @Test
     public void testOldAnalysisShouldBeCancelled() {
-        assertThrows(CancellationException.class, this::actualTest);
-    }
-
-    private void actualTest() throws InterruptedException {
-        final CancellationException[] cancellationException = {null};
-        Thread thread = new Thread(() -> {
-            try {
-                analyzer.analyze(Paths.get("test"), "", result -> {
-                    try {
-                        System.out.println("Running 1");
-                        sleep(500);
-                    } catch (CancellationException e) {
-                        cancellationException[0] = e;
-                    }
-                });
-            } catch (CancellationException e) {
-                cancellationException[0] = e;
-            }
-        }, "First Thread");
-        thread.start();
-
-//        sleep(2);
-        analyzer.analyze(Paths.get("test"), "", analysisResult -> {
+        CompletableFuture<Void> first = analyzer.analyze(Paths.get("test"), "", result -> {
+            System.out.println("Running 1");
+            sleep(500);
+        });
+        CompletableFuture<Void> second = analyzer.analyze(Paths.get("test"), "", analysisResult -> {
             System.out.println("Running 2");
         });
-        thread.join();
 
-        if (cancellationException[0] != null) {
-            throw cancellationException[0];
+        assertThrows(CancellationException.class, first::join);
+        second.join();
+    }
+
+    @Test
+    public void testDebouncedRequestsAreCoalesced() {
+        analyzer.setDebounce(Priority.BACKGROUND, Duration.ofMillis(200));
+        try {
+            AtomicBoolean firstRan = new AtomicBoolean();
+            CompletableFuture<Boolean> first = analyzer.submit(Priority.BACKGROUND, Paths.get("test"), "", result -> {
+                firstRan.set(true);
+                return true;
+            });
+            CompletableFuture<Boolean> second = analyzer.submit(Priority.BACKGROUND, Paths.get("test"), "", result -> true);
+
+            Truth.assertThat(second.join()).isTrue();
+            Truth.assertThat(first.isCancelled()).isTrue();
+            Truth.assertThat(firstRan.get()).isFalse();
+        } finally {
+            analyzer.setDebounce(Priority.BACKGROUND, Duration.ZERO);
         }
     }
 
+    @Test
+    public void testInteractiveRequestPreemptsBackgroundRequest() {
+        CompletableFuture<String> background = analyzer.submit(Priority.BACKGROUND, Paths.get("test"), "", result -> {
+            sleep(300);
+            analyzer.checkCancelled();
+            return "background";
+        });
+        sleep(100);
+        CompletableFuture<String> interactive = analyzer.submit(Priority.INTERACTIVE, Paths.get("test"), "", result -> "interactive");
+
+        Truth.assertThat(interactive.join()).isEqualTo("interactive");
+        // the preempted request runs again once the interactive one is done
+        Truth.assertThat(background.join()).isEqualTo("background");
+    }
+
+    @Test
+    public void testSupersededRequestStaysCancelledWhenPreempted() throws Exception {
+        CompletableFuture<String> superseded = analyzer.submit(Priority.BACKGROUND, Paths.get("test"), "", result -> {
+            sleep(300);
+            analyzer.checkCancelled();
+            return "superseded";
+        });
+        sleep(100);
+        CompletableFuture<String> latest = analyzer.submit(Priority.BACKGROUND, Paths.get("test"), "", result -> "latest");
+        CompletableFuture<String> interactive = analyzer.submit(Priority.INTERACTIVE, Paths.get("test"), "", result -> "interactive");
+
+        Truth.assertThat(interactive.join()).isEqualTo("interactive");
+        Truth.assertThat(latest.join()).isEqualTo("latest");
+        assertThrows(CancellationException.class, () -> superseded.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRequestsAfterCloseAreCancelled() {
+        Analyzer closed = new Analyzer(fileManager, rootModule);
+        closed.close();
+
+        CompletableFuture<String> future = closed.submit(Priority.INTERACTIVE, Paths.get("test"), "", result -> "ran");
+        Truth.assertThat(future.isCancelled()).isTrue();
+        Truth.assertThat(closed.submitDiagnostics(Paths.get("test"), "", 1).isCancelled()).isTrue();
+    }
+
     private static void sleep(long millis) {
         try {
             Thread.sleep(millis);
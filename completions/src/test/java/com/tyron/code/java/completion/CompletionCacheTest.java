@@ -0,0 +1,87 @@
+package com.tyron.code.java.completion;
+
+import com.google.common.truth.Truth;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class CompletionCacheTest extends BaseCompletionTest {
+
+    private static final String CONTENTS = """
+            class Main {
+                int count;
+                void first(Main other) {
+                    other.
+                }
+                void second(Main other) {
+                    other.
+                }
+            }
+            """;
+
+    @Test
+    public void testReturningToPreviousSiteIsServedFromCache() throws Exception {
+        Path file = openFile(CONTENTS);
+
+        List<CompletionCandidate> first = completor.getCompletionResult(file, 3, 14).getCompletionCandidates();
+        completor.getCompletionResult(file, 6, 14);
+        List<CompletionCandidate> again = completor.getCompletionResult(file, 3, 14).getCompletionCandidates();
+
+        // candidates of source members are created anew by every analysis
+        Truth.assertThat(again.stream().map(CompletionCandidate::getName).toList()).contains("count");
+        Truth.assertThat(first).containsAtLeast(again.toArray());
+    }
+
+    @Test
+    public void testTypingNarrowsCachedCompletion() throws Exception {
+        Path file = openFile(CONTENTS);
+        List<CompletionCandidate> first = completor.getCompletionResult(file, 3, 14).getCompletionCandidates();
+
+        fileManager.setSnapshotContent(file.toUri(), CONTENTS.replaceFirst("other\\.", "other.co"));
+        List<CompletionCandidate> narrowed = completor.getCompletionResult(file, 3, 16).getCompletionCandidates();
+
+        CompletionCandidate count = first.stream().filter(it -> it.getName().equals("count")).findFirst().orElseThrow();
+        Truth.assertThat(narrowed).containsExactly(count);
+    }
+
+    @Test
+    public void testEditOutsideOfSiteInvalidatesCache() throws Exception {
+        Path file = openFile(CONTENTS);
+        List<CompletionCandidate> first = completor.getCompletionResult(file, 3, 14).getCompletionCandidates();
+
+        fileManager.setSnapshotContent(file.toUri(), CONTENTS.replace("int count;", "int total;"));
+        List<String> names = completor.getCompletionResult(file, 3, 14).getCompletionCandidates().stream()
+                .map(CompletionCandidate::getName)
+                .toList();
+
+        Truth.assertThat(first.stream().map(CompletionCandidate::getName).toList()).contains("count");
+        Truth.assertThat(names).contains("total");
+        Truth.assertThat(names).doesNotContain("count");
+    }
+
+    @Test
+    public void testPhasesAreRecordedByCompletionKind() throws Exception {
+        Path file = openFile(CONTENTS);
+        CompletionMetrics metrics = completor.getMetrics();
+        String memberSelect = CompleteMemberSelectAction.class.getSimpleName();
+        long memberSelects = metrics.getHistogram(memberSelect, CompletionMetrics.Phase.TOTAL).getCount();
+        long cached = metrics.getHistogram(CompletionMetrics.CACHED, CompletionMetrics.Phase.TOTAL).getCount();
+
+        completor.getCompletionResult(file, 3, 14);
+        completor.getCompletionResult(file, 3, 14);
+
+        Truth.assertThat(metrics.getHistogram(memberSelect, CompletionMetrics.Phase.TOTAL).getCount()).isEqualTo(memberSelects + 1);
+        Truth.assertThat(metrics.getHistogram(memberSelect, CompletionMetrics.Phase.GENERATE_CANDIDATES).getCount()).isAtLeast(1L);
+        Truth.assertThat(metrics.getHistogram(CompletionMetrics.CACHED, CompletionMetrics.Phase.TOTAL).getCount()).isEqualTo(cached + 1);
+        Truth.assertThat(metrics.getKinds()).contains(memberSelect);
+    }
+
+    private Path openFile(String contents) throws Exception {
+        Path file = Files.createTempFile("", ".java");
+        Files.writeString(file, contents);
+        fileManager.openFileForSnapshot(file.toUri(), contents);
+        return file;
+    }
+}
@@ -0,0 +1,64 @@
+package com.tyron.code.java.completion;
+
+import com.google.common.truth.Truth;
+import com.tyron.code.java.completion.CompletionPrefixMatcher.MatchLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class CompletionPrefixMatcherTest {
+
+    @Test
+    public void testMatchLevels() {
+        Truth.assertThat(matchLevel("getValue", "getValue")).isEqualTo(MatchLevel.CASE_SENSITIVE_EQUAL);
+        Truth.assertThat(matchLevel("getValue", "getvalue")).isEqualTo(MatchLevel.CASE_INSENSITIVE_EQUAL);
+        Truth.assertThat(matchLevel("getValue", "getV")).isEqualTo(MatchLevel.CASE_SENSITIVE_PREFIX);
+        Truth.assertThat(matchLevel("getValue", "GETV")).isEqualTo(MatchLevel.CASE_INSENSITIVE_PREFIX);
+        Truth.assertThat(matchLevel("getValue", "gV")).isEqualTo(MatchLevel.CAMEL_HUMP);
+        Truth.assertThat(matchLevel("getValue", "geVal")).isEqualTo(MatchLevel.CAMEL_HUMP);
+        Truth.assertThat(matchLevel("getValue", "gVe")).isEqualTo(MatchLevel.NOT_MATCH);
+        Truth.assertThat(matchLevel("getValue", "value")).isEqualTo(MatchLevel.NOT_MATCH);
+    }
+
+    @Test
+    public void testMatchLevelsOfNamesAgreeWithStrings() {
+        String[] names = {"getValue", "HTTP_STATUS", "a1b2", "length", ""};
+        String[] prefixes = {"", "g", "gv", "HS", "hTs", "a2", "len", "LENGTH", "x"};
+        for (String name : names) {
+            for (String prefix : prefixes) {
+                Truth.assertThat(matchLevel(name, prefix))
+                        .isEqualTo(CompletionPrefixMatcher.computeMatchLevel(name, prefix));
+            }
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    public void testCamelHumpOfLongConstants() {
+        // every letter of an all-caps name starts a word, so the prefix can be split many ways
+        String constant = "A".repeat(40);
+        String prefix = "A".repeat(20) + "B";
+        Truth.assertThat(matchLevel(constant, prefix)).isEqualTo(MatchLevel.NOT_MATCH);
+        Truth.assertThat(matchLevel(constant + "B", "A" + prefix)).isEqualTo(MatchLevel.CAMEL_HUMP);
+
+        String longConstant = "A".repeat(100);
+        Truth.assertThat(matchLevel(longConstant, prefix)).isEqualTo(MatchLevel.NOT_MATCH);
+        Truth.assertThat(matchLevel(longConstant + "_B", "A" + prefix)).isEqualTo(MatchLevel.CAMEL_HUMP);
+        Truth.assertThat(matchLevel("get" + longConstant + "Value", "gAV")).isEqualTo(MatchLevel.CAMEL_HUMP);
+        Truth.assertThat(matchLevel("get" + longConstant + "Value", "gVa")).isEqualTo(MatchLevel.CAMEL_HUMP);
+        Truth.assertThat(matchLevel("get" + longConstant + "Value", "gVe")).isEqualTo(MatchLevel.NOT_MATCH);
+    }
+
+    @Test
+    public void testPartialMatch() {
+        CandidateName name = CandidateName.of("getOrDefault");
+        Truth.assertThat(CompletionPrefixMatcher.matchesPartially(name, CandidateName.of(""))).isTrue();
+        Truth.assertThat(CompletionPrefixMatcher.matchesPartially(name, CandidateName.of("ordef"))).isTrue();
+        Truth.assertThat(CompletionPrefixMatcher.matchesPartially(name, CandidateName.of("gtdft"))).isTrue();
+        Truth.assertThat(CompletionPrefixMatcher.matchesPartially(name, CandidateName.of("fault2"))).isFalse();
+        Truth.assertThat(CompletionPrefixUtils.prefixPartiallyMatch("ordef", "getOrDefault")).isTrue();
+    }
+
+    private static MatchLevel matchLevel(String name, String prefix) {
+        return CompletionPrefixMatcher.computeMatchLevel(CandidateName.of(name), CandidateName.of(prefix));
+    }
+}
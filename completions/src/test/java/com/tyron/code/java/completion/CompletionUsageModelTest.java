@@ -0,0 +1,71 @@
+package com.tyron.code.java.completion;
+
+import com.google.common.truth.Truth;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.ToIntFunction;
+
+public class CompletionUsageModelTest {
+
+    @Test
+    public void testCountsAreSavedPerContext() throws Exception {
+        Path file = Files.createTempDirectory("usage").resolve("usage.bin");
+        CompletionUsageModel model = CompletionUsageModel.persisted(file);
+        model.record("type:java.util.List", "add");
+        model.record("type:java.util.List", "add");
+        model.record("type:java.lang.String", "length");
+        model.close();
+        Truth.assertThat(Files.exists(file)).isTrue();
+
+        CompletionUsageModel reopened = CompletionUsageModel.persisted(file);
+        Truth.assertThat(reopened).isNotSameInstanceAs(model);
+        reopened.awaitLoaded();
+        ToIntFunction<String> list = reopened.getCounts("type:java.util.List");
+        Truth.assertThat(list.applyAsInt("add")).isEqualTo(2);
+        Truth.assertThat(list.applyAsInt("length")).isEqualTo(0);
+        Truth.assertThat(reopened.getCounts("type:java.lang.String").applyAsInt("length")).isEqualTo(1);
+        Truth.assertThat(reopened.getCounts("module:app").applyAsInt("add")).isEqualTo(0);
+        reopened.close();
+    }
+
+    @Test
+    public void testUnreadableFileIsIgnored() throws Exception {
+        Path file = Files.createTempDirectory("usage").resolve("usage.bin");
+        Files.writeString(file, "not a usage file");
+
+        CompletionUsageModel model = CompletionUsageModel.persisted(file);
+        model.awaitLoaded();
+        Truth.assertThat(model.getCounts("type:java.util.List").applyAsInt("add")).isEqualTo(0);
+        model.close();
+    }
+
+    @Test
+    public void testFlushSavesWithoutClosing() throws Exception {
+        Path file = Files.createTempDirectory("usage").resolve("usage.bin");
+        CompletionUsageModel model = CompletionUsageModel.persisted(file);
+        model.record("type:java.util.List", "add");
+        model.flush();
+        Truth.assertThat(Files.exists(file)).isTrue();
+        Truth.assertThat(CompletionUsageModel.persisted(file)).isSameInstanceAs(model);
+        Truth.assertThat(model.getCounts("type:java.util.List").applyAsInt("add")).isEqualTo(1);
+        model.close();
+    }
+
+    @Test
+    public void testInMemoryCountsAreCapped() {
+        CompletionUsageModel model = CompletionUsageModel.inMemory();
+        for (int i = 0; i < 3 * CompletionUsageModel.MAX_CONTEXTS; i++) {
+            model.record("type:Type" + i, "name");
+        }
+        model.record("type:java.util.List", "add");
+        model.record("type:java.util.List", "add");
+        for (int i = 0; i < 3 * CompletionUsageModel.MAX_NAMES_PER_CONTEXT; i++) {
+            model.record("type:java.util.List", "name" + i);
+        }
+        Truth.assertThat(model.getContextCount()).isAtMost(2 * CompletionUsageModel.MAX_CONTEXTS);
+        // the most accepted candidates survive trimming
+        Truth.assertThat(model.getCounts("type:java.util.List").applyAsInt("add")).isEqualTo(2);
+    }
+}
@@ -21,4 +21,95 @@ public class CompletionVisibilityTest extends BaseCompletionTest {
 
         Truth.assertThat(completed).doesNotContain("instance");
     }
+
+    @Test
+    void testCachedBinaryMembersAreFilteredByScope() {
+        String text = """
+                class Main {
+                    void main(String value) {
+                        value.@complete
+                    }
+                }
+                """;
+        List<String> first = completeString(text);
+        int hits = MemberCompletionCache.INSTANCE.getHitCount();
+        List<String> second = completeString(text);
+
+        Truth.assertThat(MemberCompletionCache.INSTANCE.getHitCount()).isEqualTo(hits + 1);
+        Truth.assertThat(second).containsExactly(first.toArray());
+        Truth.assertThat(second).contains("substring");
+        Truth.assertThat(second).doesNotContain("clone");
+        Truth.assertThat(second).doesNotContain("hash");
+    }
+
+    @Test
+    void testCachedProtectedStaticMembersAreAccessibleFromSubclasses() {
+        // warm the cache, the member lists below are then filtered from the cached ClassLoader
+        completeString("""
+                class Main {
+                    void main() {
+                        ClassLoader.@complete
+                    }
+                }
+                """);
+
+        int hits = MemberCompletionCache.INSTANCE.getHitCount();
+        List<String> subclass = completeString("""
+                class Main extends ClassLoader {
+                    void main() {
+                        ClassLoader.@complete
+                    }
+                }
+                """);
+        List<String> unrelated = completeString("""
+                class Main {
+                    void main() {
+                        ClassLoader.@complete
+                    }
+                }
+                """);
+
+        Truth.assertThat(MemberCompletionCache.INSTANCE.getHitCount()).isEqualTo(hits + 2);
+        Truth.assertThat(subclass).contains("registerAsParallelCapable");
+        Truth.assertThat(unrelated).contains("getSystemClassLoader");
+        Truth.assertThat(unrelated).doesNotContain("registerAsParallelCapable");
+    }
+
+    @Test
+    void testCachedProtectedMembersNeedSubclassQualifier() {
+        String text = """
+                class Main extends java.util.AbstractList<String> {
+                    void main(java.util.AbstractList<String> other) {
+                        other.@complete
+                    }
+                    public String get(int index) { return null; }
+                    public int size() { return 0; }
+                }
+                """;
+        completeString(text);
+
+        int hits = MemberCompletionCache.INSTANCE.getHitCount();
+        List<String> completed = completeString(text);
+
+        Truth.assertThat(MemberCompletionCache.INSTANCE.getHitCount()).isEqualTo(hits + 1);
+        Truth.assertThat(completed).contains("subList");
+        // protected instance members of AbstractList are only accessible through a Main qualifier
+        Truth.assertThat(completed).doesNotContain("removeRange");
+        Truth.assertThat(completed).doesNotContain("clone");
+    }
+
+    @Test
+    void testProtectedMembersAreAccessibleThroughSubclassQualifier() {
+        List<String> completed = completeString("""
+                class Main extends java.util.AbstractList<String> {
+                    void main(Main other) {
+                        other.@complete
+                    }
+                    public String get(int index) { return null; }
+                    public int size() { return 0; }
+                }
+                """);
+        Truth.assertThat(completed).contains("removeRange");
+        Truth.assertThat(completed).contains("clone");
+    }
 }
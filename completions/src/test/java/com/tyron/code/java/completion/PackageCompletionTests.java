@@ -44,6 +44,16 @@ public class PackageCompletionTests extends BaseCompletionTest{
         assertThat(complete).contains("List");
     }
 
+    @Test
+    public void testPackageCompletionListsDirectSubPackages() {
+        List<String> complete = completeString("""
+                import java.util.@complete
+                """);
+        assertThat(complete).contains("concurrent");
+        assertThat(complete).doesNotContain("atomic");
+        assertThat(complete).doesNotContain("ConcurrentHashMap");
+    }
+
     @Test
     public void testPackageCompletionWorksOnStaticImports() {
         List<String> complete = completeString("""
@@ -0,0 +1,48 @@
+package com.tyron.code.java.completion;
+
+import com.google.common.truth.Truth;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class RankedCompletionCandidatesTest {
+
+    @Test
+    public void testFirstPageHoldsTheBestCandidates() {
+        List<CompletionCandidate> candidates = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            candidates.add(new SimpleCompletionCandidate("value" + (char) ('t' - i)));
+        }
+        CompletionCandidate exact = new SimpleCompletionCandidate("val");
+        CompletionCandidate unmatched = new SimpleCompletionCandidate("other");
+        candidates.add(unmatched);
+        candidates.add(exact);
+
+        RankedCompletionCandidates ranked = RankedCompletionCandidates.rank(candidates, "val", 3);
+
+        Truth.assertThat(ranked.getFirstPage().stream().map(CompletionCandidate::getName).toList())
+                .containsExactly("val", "valuea", "valueb").inOrder();
+        Truth.assertThat(ranked).hasSize(candidates.size());
+        Truth.assertThat(ranked.get(3).getName()).isEqualTo("valuec");
+        Truth.assertThat(ranked.get(ranked.size() - 1)).isSameInstanceAs(unmatched);
+    }
+
+    @Test
+    public void testAcceptedCandidatesRankFirst() {
+        List<CompletionCandidate> candidates = List.of(
+                new SimpleCompletionCandidate("add"),
+                new SimpleCompletionCandidate("addAll"),
+                new SimpleCompletionCandidate("afterLast"));
+        Map<String, Integer> usage = Map.of("addAll", 3, "afterLast", 1);
+
+        RankedCompletionCandidates ranked = RankedCompletionCandidates.rank(
+                candidates, "a", 2, name -> usage.getOrDefault(name, 0));
+
+        Truth.assertThat(ranked.stream().map(CompletionCandidate::getName).toList())
+                .containsExactly("addAll", "afterLast", "add").inOrder();
+        Truth.assertThat(ranked.narrow("ad", 2).stream().map(CompletionCandidate::getName).toList())
+                .containsExactly("addAll", "add").inOrder();
+    }
+}
@@ -0,0 +1,111 @@
+package com.tyron.code.java.parsing;
+
+import com.google.common.truth.Truth;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class JavaTokensTest {
+
+    /** Lexical errors are logged against the source file, so it has to exist. */
+    private static final Path SOURCE_FILE = createSourceFile();
+
+    private static final String CONTENT = """
+            package test;
+
+            /* a block comment */
+            class Main {
+                String text = \"""
+                    a text block
+                    \""";
+                public static void main(String[] args) {
+                    int count = 1 + 2;
+                    // a line comment
+                    System.out.println("count " + count);
+                }
+            }
+            """;
+
+    @Test
+    public void testRelexMatchesLex() {
+        String[][] edits = {
+                // typing a member select
+                {"System.out.println", "System.out."},
+                // extending an identifier
+                {"int count", "int counter"},
+                // opening a block comment that swallows the rest of the file
+                {"int count", "/* int count"},
+                // editing inside a comment
+                {"a block comment", "a comment"},
+                // editing inside a text block
+                {"a text block", "a text \\u0041 block"},
+                // an error token
+                {"1 + 2", "1 + 2 ..x"},
+                // appending at the end
+                {"}\n}\n", "}\n}\nclass Other {"},
+        };
+        for (String[] edit : edits) {
+            String edited = CONTENT.replace(edit[0], edit[1]);
+            assertSameTokens(lex(CONTENT).relex(parserContext(), edited), lex(edited));
+            assertSameTokens(lex(edited).relex(parserContext(), CONTENT), lex(CONTENT));
+        }
+    }
+
+    @Test
+    public void testRelexOfLargeFile() {
+        StringBuilder builder = new StringBuilder("class Main {\n");
+        for (int i = 0; i < 2000; i++) {
+            builder.append("    int field").append(i).append(" = ").append(i).append("; // field ").append(i).append('\n');
+        }
+        builder.append("}\n");
+        String content = builder.toString();
+
+        Random random = new Random(0);
+        String[] insertions = {".", "\"", "/*", "*/", "x", " ", "\n", "'", "..", "\\"};
+        JavaTokens tokens = lex(content);
+        for (int i = 0; i < 50; i++) {
+            int pos = random.nextInt(content.length());
+            content = content.substring(0, pos) + insertions[random.nextInt(insertions.length)] + content.substring(pos);
+            tokens = tokens.relex(parserContext(), content);
+            assertSameTokens(tokens, lex(content));
+        }
+    }
+
+    private static Path createSourceFile() {
+        try {
+            return Files.createTempFile("Main", ".java");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ParserContext parserContext() {
+        ParserContext parserContext = new ParserContext();
+        parserContext.setupLoggingSource(SOURCE_FILE.toString());
+        return parserContext;
+    }
+
+    private static JavaTokens lex(String content) {
+        return JavaTokens.lex(parserContext(), content);
+    }
+
+    private static void assertSameTokens(JavaTokens actual, JavaTokens expected) {
+        Truth.assertThat(actual.getContent()).isEqualTo(expected.getContent());
+        Truth.assertThat(describe(actual)).isEqualTo(describe(expected));
+    }
+
+    private static List<String> describe(JavaTokens tokens) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            list.add(tokens.getKind(i) + "@" + tokens.getPosition(i) + "-" + tokens.getEndPosition(i)
+                    + (tokens.getErrorPosition(i) >= 0 ? "!" + tokens.getErrorPosition(i) : ""));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tyron.code.java.parsing;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SignatureStubCacheTest {
+
+    @Test
+    public void testStubIsComputedOncePerStamp() throws Exception {
+        Path directory = Files.createTempDirectory("stubs");
+        Path source = directory.resolve("A.java");
+        AtomicInteger computed = new AtomicInteger();
+        Supplier<String> stub = () -> "class A {} // " + computed.incrementAndGet();
+
+        SignatureStubCache cache = SignatureStubCache.persisted(directory.resolve(".codeassist/stubs"));
+        assertEquals("class A {} // 1", cache.get(source, 1, 10, stub));
+        assertEquals("class A {} // 1", cache.get(source, 1, 10, stub));
+        assertEquals("class A {} // 2", cache.get(source, 2, 10, stub));
+
+        // read back from the disk
+        cache.awaitWrites();
+        cache.clearMemory();
+        assertEquals("class A {} // 2", cache.get(source, 2, 10, stub));
+        assertEquals(2, computed.get());
+
+        cache.onFileChange(source, StandardWatchEventKinds.ENTRY_MODIFY);
+        cache.awaitWrites();
+        assertEquals("class A {} // 3", cache.get(source, 2, 10, stub));
+    }
+
+    @Test
+    public void testStampChangeInvalidatesStub() throws Exception {
+        Path directory = Files.createTempDirectory("stubs");
+        Path source = directory.resolve("A.java");
+        AtomicInteger computed = new AtomicInteger();
+        Supplier<String> stub = () -> "class A {} // " + computed.incrementAndGet();
+
+        SignatureStubCache cache = SignatureStubCache.persisted(directory.resolve(".codeassist/stubs"));
+        assertEquals("class A {} // 1", cache.get(source, 1, 31, stub));
+        // the same modification time with another size, and a stamp that mtime * 31 + size mixed up
+        assertEquals("class A {} // 2", cache.get(source, 1, 32, stub));
+        assertEquals("class A {} // 3", cache.get(source, 2, 0, stub));
+
+        // a stub read back from the disk is checked the same way
+        cache.awaitWrites();
+        cache.clearMemory();
+        assertEquals("class A {} // 4", cache.get(source, 2, 1, stub));
+        cache.awaitWrites();
+        cache.clearMemory();
+        assertEquals("class A {} // 4", cache.get(source, 2, 1, stub));
+        assertEquals(4, computed.get());
+    }
+}
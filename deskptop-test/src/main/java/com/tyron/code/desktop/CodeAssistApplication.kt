@@ -8,6 +8,7 @@ import com.tyron.code.desktop.ui.pane.LoggingPane
 import com.tyron.code.desktop.ui.pane.WelcomePane
 import com.tyron.code.desktop.ui.pane.WorkspaceRootPane
 import com.tyron.code.desktop.util.FxThreadUtils
+import com.tyron.code.java.completion.CompletionUsageModel
 import com.tyron.code.logging.Logging
 import com.tyron.code.project.*
 import com.tyron.code.project.impl.WorkspaceImpl
@@ -65,6 +66,11 @@ class CodeAssistApplication : Application(), WorkspaceCloseListener, WorkspaceOp
         testInit()
     }
 
+    override fun stop() {
+        // the usage thread is a daemon, save what was accepted before the JVM exits
+        CompletionUsageModel.closeAll()
+    }
+
     private fun eagerInit() {
         getKoin().get<NavigationManager>()
     }
@@ -6,6 +6,8 @@ import com.tyron.code.desktop.ui.control.richtext.source.CompletionProvider;
 import com.tyron.code.desktop.util.FxThreadUtils;
 import com.tyron.code.java.completion.CompletionCandidate;
 import com.tyron.code.java.completion.CompletionResult;
+import com.tyron.code.java.completion.RankedCompletionCandidates;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -13,6 +15,7 @@ import javafx.geometry.Bounds;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BorderPane;
@@ -46,6 +49,13 @@ public class AutoCompletePopup extends Popup implements EditorComponent, Consume
     private int selectionIndex = 0;
 
     private CompletableFuture<CompletionResult> previousCompletionRequest;
+    /** Incremented on the FX thread for each request, results of older requests are not shown. */
+    private int completionRequestId;
+
+    /** All the candidates of the completion shown, {@link #items} holds the pages loaded so far. */
+    private List<CompletionCandidate> completions = List.of();
+    /** The result shown, {@code null} until a completion is shown. */
+    private CompletionResult result;
 
     private Editor editor;
 
@@ -77,7 +87,53 @@ public class AutoCompletePopup extends Popup implements EditorComponent, Consume
 
         itemsBox.getChildren().addListener((ListChangeListener<Node>) change -> selectedLabel.setText((selectionIndex + 1) + "/" + change.getList().size()));
 
-        itemsList.setCellFactory(param -> new CompletionListCell());
+        itemsList.setCellFactory(param -> {
+            CompletionListCell cell = new CompletionListCell();
+            cell.indexProperty().addListener((observable, oldIndex, newIndex) -> {
+                if (newIndex.intValue() >= 0 && newIndex.intValue() == items.size() - 1) {
+                    // the last loaded item is being shown, load the next page outside of the layout pass
+                    Platform.runLater(this::loadNextPage);
+                }
+            });
+            return cell;
+        });
+        itemsList.setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) {
+                acceptSelected();
+            }
+        });
+        itemsList.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ENTER) {
+                acceptSelected();
+                event.consume();
+            }
+        });
+    }
+
+    /**
+     * Replaces the prefix before the caret with the selected candidate.
+     */
+    private void acceptSelected() {
+        CompletionCandidate candidate = itemsList.getSelectionModel().getSelectedItem();
+        CompletionResult result = this.result;
+        if (candidate == null || result == null || editor == null) {
+            return;
+        }
+        String text = candidate.getInsertPlainText(result.getTextEditOptions()).orElse(candidate.getName());
+        int caret = editor.getCodeArea().getCaretPosition();
+        int start = Math.max(0, caret - result.getPrefix().length());
+        editor.getCodeArea().replaceText(start, caret, text);
+        hide();
+        provider.accepted(result, candidate);
+    }
+
+    private void loadNextPage() {
+        int loaded = items.size();
+        if (loaded >= completions.size()) {
+            return;
+        }
+        int end = Math.min(loaded + RankedCompletionCandidates.DEFAULT_PAGE_SIZE, completions.size());
+        items.addAll(completions.subList(loaded, end));
     }
 
 
@@ -114,24 +170,69 @@ public class AutoCompletePopup extends Popup implements EditorComponent, Consume
             }
         }
 
-        previousCompletionRequest = CompletableFuture.supplyAsync(() -> provider.getCompletionSuggestions(editor));
-        previousCompletionRequest.thenAccept(result -> {
-            List<CompletionCandidate> completions = result.getCompletionCandidates();
-            if (completions.isEmpty()) {
+        int requestId = ++completionRequestId;
+        // read the editor here on the FX thread, the completion itself runs in the background
+        CompletionProvider.Completion completion = provider.prepareCompletion(editor);
+        CompletableFuture<CompletionResult> request = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            if (request.isDone()) {
                 return;
             }
-            FxThreadUtils.run(() -> {
-                items.clear();
-                items.addAll(completions);
+            CompletableFuture<CompletionResult> running;
+            try {
+                running = completion.run(partialResult -> showCompletions(requestId, partialResult));
+            } catch (Throwable e) {
+                request.completeExceptionally(e);
+                return;
+            }
+            // cancelling the request cancels the completion itself, even if it was cancelled
+            // while the completion was being started
+            request.whenComplete((result, throwable) -> {
+                if (request.isCancelled()) {
+                    running.cancel(true);
+                }
+            });
+            running.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    request.completeExceptionally(throwable);
+                } else {
+                    request.complete(result);
+                }
+            });
+        });
+        request.thenAccept(result -> showCompletions(requestId, result));
+        previousCompletionRequest = request;
+    }
 
-                itemsList.setPrefHeight(items.size() * itemsList.getFixedCellSize());
+    /**
+     * Shows the first page of a result, unless a newer completion has been requested since.
+     */
+    private void showCompletions(int requestId, CompletionResult result) {
+        if (result == null) {
+            return;
+        }
+        List<CompletionCandidate> completions = result.getCompletionCandidates();
+        if (completions.isEmpty()) {
+            return;
+        }
+        List<CompletionCandidate> firstPage = completions instanceof RankedCompletionCandidates ranked
+                ? ranked.getFirstPage()
+                : completions;
+        FxThreadUtils.run(() -> {
+            if (requestId != completionRequestId) {
+                return;
+            }
+            this.result = result;
+            this.completions = completions;
+            items.setAll(firstPage);
 
+            itemsList.setPrefHeight(items.size() * itemsList.getFixedCellSize());
 
-                resultsCount.setText("Results: " + completions.size());
 
-                Bounds caretBounds = editor.getCodeArea().getCaretBounds().orElseThrow();
-                show(editor, caretBounds.getMaxX(), caretBounds.getMaxY());
-            });
+            resultsCount.setText("Results: " + completions.size());
+
+            Bounds caretBounds = editor.getCodeArea().getCaretBounds().orElseThrow();
+            show(editor, caretBounds.getMaxX(), caretBounds.getMaxY());
         });
     }
 
@@ -1,6 +1,7 @@
 package com.tyron.code.desktop.ui.control.richtext.problem;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Outline of a problem.
@@ -13,6 +14,7 @@ public class Problem implements Comparable<Problem> {
 	private final ProblemLevel level;
 	private final ProblemPhase phase;
 	private final String message;
+	private final Object source;
 
 	/**
 	 * @param line
@@ -28,11 +30,33 @@ public class Problem implements Comparable<Problem> {
 	 * 		Problem message.
 	 */
 	public Problem(int line, int column, @NotNull ProblemLevel level, @NotNull ProblemPhase phase, @NotNull String message) {
+		this(line, column, level, phase, message, null);
+	}
+
+	/**
+	 * @param line
+	 * 		Line the problem occurred on.
+	 * @param column
+	 * 		Column in the line the problem occurred on.
+	 * 		May be negative if position information is not available.
+	 * @param level
+	 * 		Problem level.
+	 * @param phase
+	 * 		Problem phase, stating at what point in the process the problem occurred.
+	 * @param message
+	 * 		Problem message.
+	 * @param source
+	 * 		Object the problem was created from, such as a compiler diagnostic.
+	 * 		Kept by copies of the problem, so it can be found again after lines shift.
+	 */
+	public Problem(int line, int column, @NotNull ProblemLevel level, @NotNull ProblemPhase phase, @NotNull String message,
+				   @Nullable Object source) {
 		this.line = line;
 		this.column = column;
 		this.level = level;
 		this.phase = phase;
 		this.message = message;
+		this.source = source;
 	}
 
 //	/**
@@ -57,7 +81,7 @@ public class Problem implements Comparable<Problem> {
 	 * @return Copy of the current problem, but with the line number modified.
 	 */
 	public Problem withLine(int newLine) {
-		return new Problem(newLine, column, level, phase, message);
+		return new Problem(newLine, column, level, phase, message, source);
 	}
 
 	/**
@@ -67,7 +91,7 @@ public class Problem implements Comparable<Problem> {
 	 * @return Copy of the current problem, but with the column number modified.
 	 */
 	public Problem withColumn(int newColumn) {
-		return new Problem(line, newColumn, level, phase, message);
+		return new Problem(line, newColumn, level, phase, message, source);
 	}
 
 	/**
@@ -109,6 +133,15 @@ public class Problem implements Comparable<Problem> {
 		return message;
 	}
 
+	/**
+	 * @return Object the problem was created from, such as a compiler diagnostic.
+	 * May be {@code null} if the problem was not created from another object.
+	 */
+	@Nullable
+	public Object getSource() {
+		return source;
+	}
+
 	@Override
 	public String toString() {
 		return line + ":" + level.name() + ": " + message;
@@ -12,6 +12,7 @@ import org.fxmisc.richtext.model.ReadOnlyStyledDocument;
 import org.fxmisc.richtext.model.TwoDimensional;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
 import java.util.function.Predicate;
 
 /**
@@ -22,18 +23,35 @@ import java.util.function.Predicate;
 public class ProblemTracking implements EditorComponent, Consumer<PlainTextChange> {
 	private static final DebuggingLogger logger = Logging.get(ProblemTracking.class);
 	private final List<ProblemInvalidationListener> listeners = new ArrayList<>();
-	private final NavigableMap<Integer, Problem> problems = new TreeMap<>();
+	/** Problems by line, a line can have more than one problem. Lists are never empty. */
+	private final NavigableMap<Integer, List<Problem>> problems = new TreeMap<>();
 	private Editor editor;
 
 	/**
 	 * @param line
 	 * 		Line number of problem.
 	 *
-	 * @return Problem on the line.
+	 * @return The most severe problem on the line.
 	 */
 	@Nullable
 	public Problem getProblem(int line) {
-		return problems.get(line);
+		List<Problem> lineProblems = problems.get(line);
+		if (lineProblems == null)
+			return null;
+		return lineProblems.stream()
+				.max(Comparator.comparing(Problem::getLevel))
+				.orElse(null);
+	}
+
+	/**
+	 * @param line
+	 * 		Line number of problems.
+	 *
+	 * @return All problems on the line.
+	 */
+	@NotNull
+	public List<Problem> getLineProblems(int line) {
+		return Collections.unmodifiableList(problems.getOrDefault(line, Collections.emptyList()));
 	}
 
 	/**
@@ -41,7 +59,7 @@ public class ProblemTracking implements EditorComponent, Consumer<PlainTextChang
 	 * 		Problem to add.
 	 */
 	public void add(@NotNull Problem problem) {
-		problems.put(problem.getLine(), problem);
+		put(problem);
 		listeners.forEach(ProblemInvalidationListener::onProblemInvalidation);
 	}
 
@@ -53,7 +71,7 @@ public class ProblemTracking implements EditorComponent, Consumer<PlainTextChang
 	 * {@code false} when the problem instance was not contained in the problems map.
 	 */
 	public boolean removeByInstance(@NotNull Problem problem) {
-		boolean updated = problems.entrySet().removeIf(p -> p.getValue() == problem);
+		boolean updated = removeIf(p -> p == problem);
 		if (updated)
 			listeners.forEach(ProblemInvalidationListener::onProblemInvalidation);
 		return updated;
@@ -61,9 +79,9 @@ public class ProblemTracking implements EditorComponent, Consumer<PlainTextChang
 
 	/**
 	 * @param line
-	 * 		Line containing problem to remove.
+	 * 		Line containing problems to remove.
 	 *
-	 * @return {@code true} when a problem at the line was removed.
+	 * @return {@code true} when problems at the line were removed.
 	 * {@code false} when there was no problem at the line.
 	 */
 	public boolean removeByLine(int line) {
@@ -80,7 +98,32 @@ public class ProblemTracking implements EditorComponent, Consumer<PlainTextChang
 	 * @return {@code true} when one or more problems matching the phase were removed.
 	 */
 	public boolean removeByPhase(@NotNull ProblemPhase phase) {
-		boolean updated = problems.entrySet().removeIf(e -> e.getValue().getPhase() == phase);
+		boolean updated = removeIf(p -> p.getPhase() == phase);
+		if (updated)
+			listeners.forEach(ProblemInvalidationListener::onProblemInvalidation);
+		return updated;
+	}
+
+	/**
+	 * Applies a batch of changes, notifying listeners once.
+	 *
+	 * @param removedSources
+	 * 		{@link Problem#getSource() Sources} of problems to remove.
+	 * @param added
+	 * 		Problems to add.
+	 *
+	 * @return {@code true} when any problem was removed or added.
+	 */
+	public boolean update(@NotNull Collection<?> removedSources, @NotNull Collection<Problem> added) {
+		boolean updated = false;
+		if (!removedSources.isEmpty()) {
+			Set<?> sources = removedSources instanceof Set<?> set ? set : new HashSet<>(removedSources);
+			updated = removeIf(p -> p.getSource() != null && sources.contains(p.getSource()));
+		}
+		for (Problem problem : added) {
+			put(problem);
+			updated = true;
+		}
 		if (updated)
 			listeners.forEach(ProblemInvalidationListener::onProblemInvalidation);
 		return updated;
@@ -121,17 +164,33 @@ public class ProblemTracking implements EditorComponent, Consumer<PlainTextChang
 	 */
 	@NotNull
 	public List<Problem> getProblems(Predicate<Problem> filter) {
-		return getProblems().values().stream()
+		return problems.values().stream()
+				.flatMap(List::stream)
 				.filter(filter)
 				.toList();
 	}
 
 	/**
-	 * @return Map of problems.
+	 * @return Map of problems by line.
 	 */
 	@NotNull
-	public NavigableMap<Integer, Problem> getProblems() {
-		return problems;
+	public NavigableMap<Integer, List<Problem>> getProblems() {
+		return Collections.unmodifiableNavigableMap(problems);
+	}
+
+	private void put(@NotNull Problem problem) {
+		problems.computeIfAbsent(problem.getLine(), line -> new ArrayList<>()).add(problem);
+	}
+
+	private boolean removeIf(@NotNull Predicate<Problem> filter) {
+		boolean updated = false;
+		for (Iterator<List<Problem>> iterator = problems.values().iterator(); iterator.hasNext(); ) {
+			List<Problem> lineProblems = iterator.next();
+			updated |= lineProblems.removeIf(filter);
+			if (lineProblems.isEmpty())
+				iterator.remove();
+		}
+		return updated;
 	}
 
 	@Override
@@ -175,47 +234,45 @@ public class ProblemTracking implements EditorComponent, Consumer<PlainTextChang
 
 	protected void onLinesInserted(int startLine, int endLine) {
 		logger.debugging(l -> l.trace("Lines inserted: {}-{}", startLine, endLine));
-		TreeSet<Map.Entry<Integer, Problem>> set =
-				new TreeSet<>((o1, o2) -> Integer.compare(o2.getKey(), o1.getKey()));
-		set.addAll(problems.entrySet());
-		set.stream()
-				.filter(e -> e.getKey() >= startLine)
-				.forEach(e -> {
-					int line = e.getKey();
-					Problem problem = e.getValue();
-
-					// Shift all problems down by the shift amount
-					int shift = 1 + endLine - startLine;
-					removeByLine(line);
-					add(problem.withLine(line + shift));
-					logger.debugging(l -> l.trace("Move problem '{}' down {} lines", problem.getMessage(), shift));
-				});
+
+		// Shift all problems down by the shift amount
+		int shift = 1 + endLine - startLine;
+		shiftProblems(startLine, line -> line + shift);
 	}
 
 	protected void onLinesRemoved(int startLine, int endLine) {
 		logger.debugging(l -> l.trace("Lines removed: {}-{}", startLine, endLine));
 
-		// We will want to sort the order of removed lines so we
-		TreeSet<Map.Entry<Integer, Problem>> set = new TreeSet<>(Comparator.comparingInt(Map.Entry::getKey));
-		set.addAll(problems.entrySet());
-		set.stream()
-				.filter(e -> e.getKey() >= startLine)
-				.forEach(e -> {
-					int line = e.getKey();
-					Problem problem = e.getValue();
-
-					// Shift all problems up by the shift amount
-					int shift = endLine - startLine;
-					removeByLine(line);
-
-					// Don't add problem back if it's in the removed range
-					if (line > startLine + shift) {
-						logger.debugging(l -> l.trace("Move problem '{}' up {} lines", problem.getMessage(), shift));
-						add(problem.withLine(line - shift));
-					} else {
-						logger.debugging(l -> l.trace("Remove problem '{}' in deleted range", problem.getMessage()));
-					}
-				});
+		// Shift all problems up by the shift amount, dropping the ones in the removed range
+		int shift = endLine - startLine;
+		shiftProblems(startLine, line -> line > startLine + shift ? line - shift : -1);
+	}
+
+	/**
+	 * Moves the problems at or after a line, notifying listeners once.
+	 *
+	 * @param startLine
+	 * 		First line whose problems are moved.
+	 * @param mapping
+	 * 		Maps the line of a problem to its new line, or a negative number to remove it.
+	 */
+	private void shiftProblems(int startLine, @NotNull IntUnaryOperator mapping) {
+		SortedMap<Integer, List<Problem>> moved = problems.tailMap(startLine);
+		if (moved.isEmpty())
+			return;
+		List<Map.Entry<Integer, List<Problem>>> entries = new ArrayList<>(moved.entrySet());
+		moved.clear();
+		for (Map.Entry<Integer, List<Problem>> entry : entries) {
+			int line = mapping.applyAsInt(entry.getKey());
+			for (Problem problem : entry.getValue()) {
+				if (line < 0) {
+					logger.debugging(l -> l.trace("Remove problem '{}' in deleted range", problem.getMessage()));
+				} else {
+					put(problem.withLine(line));
+				}
+			}
+		}
+		listeners.forEach(ProblemInvalidationListener::onProblemInvalidation);
 	}
 
 	@Override
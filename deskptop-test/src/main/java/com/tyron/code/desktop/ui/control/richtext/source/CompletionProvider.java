@@ -1,10 +1,30 @@
 package com.tyron.code.desktop.ui.control.richtext.source;
 
 import com.tyron.code.desktop.ui.control.richtext.Editor;
+import com.tyron.code.java.completion.CompletionCandidate;
 import com.tyron.code.java.completion.CompletionResult;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface CompletionProvider {
-    CompletionResult getCompletionSuggestions(Editor editor);
+    /**
+     * Captures what a completion at the caret of the editor needs. Called on the FX thread, the
+     * returned completion runs on a background thread and must not touch the editor.
+     */
+    Completion prepareCompletion(Editor editor);
+
+    /**
+     * Called once a candidate of a result has been inserted.
+     */
+    default void accepted(CompletionResult result, CompletionCandidate candidate) {
+    }
+
+    interface Completion {
+        /**
+         * @param partialResult receives the candidates that are available before the full result
+         * @return the full result, completed with {@code null} if there is nothing to complete
+         */
+        CompletableFuture<CompletionResult> run(Consumer<CompletionResult> partialResult);
+    }
 }
@@ -9,11 +9,15 @@ import com.tyron.code.desktop.ui.control.richtext.completion.AutoCompletePopup;
 import com.tyron.code.desktop.ui.control.richtext.problem.*;
 import com.tyron.code.desktop.ui.control.richtext.source.CompletionProvider;
 import com.tyron.code.desktop.util.WorkspaceUtil;
+import com.tyron.code.desktop.util.FxThreadUtils;
 import com.tyron.code.diagnostic.Diagnostic;
+import com.tyron.code.diagnostic.FileDiagnostics;
 import com.tyron.code.info.SourceClassInfo;
+import com.tyron.code.java.analysis.AnalysisScheduler;
 import com.tyron.code.java.analysis.Analyzer;
 import com.tyron.code.java.completion.CompletionCandidate;
 import com.tyron.code.java.completion.CompletionResult;
+import com.tyron.code.java.completion.CompletionUsageModel;
 import com.tyron.code.java.completion.Completor;
 import com.tyron.code.path.PathNode;
 import com.tyron.code.path.impl.SourceClassPathNode;
@@ -26,19 +30,30 @@ import org.fxmisc.richtext.model.TwoDimensional;
 import org.jetbrains.annotations.NotNull;
 import org.koin.java.KoinJavaComponent;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class JavaEditorPane extends BorderPane implements UpdatableNavigable {
 
+    private static final Duration DIAGNOSTICS_DELAY = Duration.ofMillis(300);
+
+    /** Where the accepted completions of a module are counted, relative to the module root. */
+    private static final String COMPLETION_USAGE_FILE = ".codeassist/completion-usage.bin";
+
     private final JavaModule javaModule;
-    private Completor completor;
+    private volatile Completor completor;
+    private CompletionUsageModel usageModel;
     protected final AtomicBoolean updateLock = new AtomicBoolean();
     protected final Editor editor;
     protected SourceClassPathNode pathNode;
-    private Analyzer analyzer;
+    private volatile Analyzer analyzer;
+    /** Only used on the FX thread. */
+    private SnapshotEditSync snapshotSync;
 
     public JavaEditorPane(JavaModule javaModule) {
         this.javaModule = javaModule;
@@ -53,18 +68,33 @@ public class JavaEditorPane extends BorderPane implements UpdatableNavigable {
 
         setCenter(editor);
 
-        CompletionProvider completionProvider = editor -> {
-            if (completor == null) {
-                return CompletionResult.builder().build();
+        CompletionProvider completionProvider = new CompletionProvider() {
+            @Override
+            public Completion prepareCompletion(Editor editor) {
+                Completor completor = JavaEditorPane.this.completor;
+                if (completor == null || pathNode == null) {
+                    return partialResult -> CompletableFuture.completedFuture(null);
+                }
+                // complete against the text in the editor, not the text of the last pulse
+                if (snapshotSync != null) {
+                    snapshotSync.flush();
+                }
+
+                int offset = editor.getCodeArea().getCaretPosition();
+                TwoDimensional.Position position = editor.getCodeArea().offsetToPosition(offset, TwoDimensional.Bias.Backward);
+                Path file = pathNode.getValue().getPath().toAbsolutePath();
+                int line = position.getMajor();
+                int column = position.getMinor();
+                return partialResult -> completor.getCompletionResultAsync(file, line, column, partialResult);
             }
 
-            int offset = editor.getCodeArea().getCaretPosition();
-            TwoDimensional.Position position = editor.getCodeArea().offsetToPosition(offset, TwoDimensional.Bias.Backward);
-
-            CompletionResult completionResult = completor.getCompletionResult(pathNode.getValue().getPath().toAbsolutePath(), position.getMajor(), position.getMinor());
-
-            List<Diagnostic> diagnostics = analyzer.getDiagnostics();
-            return completionResult;
+            @Override
+            public void accepted(CompletionResult result, CompletionCandidate candidate) {
+                Completor completor = JavaEditorPane.this.completor;
+                if (completor != null) {
+                    completor.recordAccepted(result, candidate);
+                }
+            }
         };
         AutoCompletePopup popup = new AutoCompletePopup(completionProvider);
         popup.install(editor);
@@ -84,7 +114,32 @@ public class JavaEditorPane extends BorderPane implements UpdatableNavigable {
 
     @Override
     public void disable() {
+        stopSnapshotSync();
+        closeAnalyzer();
+    }
 
+    private void stopSnapshotSync() {
+        if (snapshotSync != null) {
+            snapshotSync.stop();
+            snapshotSync = null;
+        }
+    }
+
+    private void closeAnalyzer() {
+        if (analyzer != null) {
+            ProblemTracking problemTracking = editor.getProblemTracking();
+            if (problemTracking != null) {
+                problemTracking.removeByPhase(ProblemPhase.BUILD);
+            }
+            analyzer.close();
+            analyzer = null;
+            completor = null;
+        }
+        if (usageModel != null) {
+            // save the candidates accepted since the last save without blocking the FX thread
+            CompletableFuture.runAsync(usageModel::flush);
+            usageModel = null;
+        }
     }
 
     @Override
@@ -103,16 +158,63 @@ public class JavaEditorPane extends BorderPane implements UpdatableNavigable {
 
 
             FileManager fileManager = WorkspaceUtil.getScoped(workspace, FileManager.class);
+            // the editor text is replaced below, that must not reach the previous file
+            stopSnapshotSync();
             CharSequence contents = fileManager.getFileContent(classInfo.getPath().toAbsolutePath()).orElseThrow();
             Unchecked.runnable(() -> fileManager.openFileForSnapshot(classInfo.getPath().toUri(), contents.toString())).run();
             editor.setText(contents.toString());
 
-            editor.getTextChangeEventStream()
-                    .addObserver(plainTextChange -> fileManager.setSnapshotContent(classInfo.getPath().toUri(), editor.getText()));
+            Path file = classInfo.getPath().toAbsolutePath();
+            snapshotSync = new SnapshotEditSync(editor, fileManager, classInfo.getPath().toUri(),
+                    () -> requestDiagnostics(fileManager, file));
+            snapshotSync.start();
 
+            closeAnalyzer();
             analyzer = new Analyzer(fileManager, javaModule);
-            completor = new Completor(fileManager, analyzer);
+            analyzer.setDebounce(AnalysisScheduler.Priority.BACKGROUND, DIAGNOSTICS_DELAY);
+            Analyzer current = analyzer;
+            analyzer.addDiagnosticsListener(delta -> FxThreadUtils.run(() -> {
+                // drop results that arrive after the analyzer was replaced
+                if (this.analyzer == current) {
+                    applyDiagnostics(delta);
+                }
+            }));
+            usageModel = CompletionUsageModel.persisted(javaModule.getRootDirectory().resolve(COMPLETION_USAGE_FILE));
+            completor = new Completor(fileManager, analyzer, usageModel);
+            requestDiagnostics(fileManager, file);
             updateLock.set(false);
         }
     }
+
+    private void requestDiagnostics(FileManager fileManager, Path file) {
+        Analyzer analyzer = this.analyzer;
+        if (analyzer == null) {
+            return;
+        }
+        long version = fileManager.getSnapshotVersion(file).orElse(0L);
+        // the snapshot content is an immutable version, it is turned into a string on the
+        // analyzer thread once the debounced request runs
+        fileManager.getFileContent(file)
+                .ifPresent(contents -> analyzer.submitDiagnostics(file, contents, version));
+    }
+
+    private void applyDiagnostics(FileDiagnostics.Delta delta) {
+        ProblemTracking problemTracking = editor.getProblemTracking();
+        if (problemTracking == null) {
+            return;
+        }
+        List<Problem> added = delta.added().stream()
+                .map(JavaEditorPane::toProblem)
+                .toList();
+        problemTracking.update(delta.removed(), added);
+    }
+
+    private static Problem toProblem(Diagnostic diagnostic) {
+        ProblemLevel level = switch (diagnostic.kind()) {
+            case ERROR -> ProblemLevel.ERROR;
+            case WARNING, MANDATORY_WARNING -> ProblemLevel.WARN;
+            default -> ProblemLevel.INFO;
+        };
+        return new Problem(diagnostic.line(), diagnostic.column(), level, ProblemPhase.BUILD, diagnostic.message(), diagnostic);
+    }
 }
@@ -0,0 +1,113 @@
+package com.tyron.code.desktop.ui.pane.editing;
+
+import com.tyron.code.desktop.ui.control.richtext.Editor;
+import com.tyron.code.project.file.FileManager;
+import com.tyron.code.project.model.TextEdit;
+import javafx.application.Platform;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.reactfx.Subscription;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sends the text changes of an {@link Editor} to the snapshot of its file as range edits, so that a
+ * keystroke costs as much as the text it changes instead of a copy of the whole document.
+ *
+ * <p>Changes are collected until the next pulse of the JavaFX application thread, changes that
+ * touch each other (typing a word, deleting with backspace) are merged on the way. The batch is
+ * applied to the snapshot against the version the previous batch produced; if the snapshot was
+ * changed by someone else in between, the snapshot is replaced with the text of the editor instead.
+ *
+ * <p>All methods must be called on the JavaFX application thread.
+ */
+final class SnapshotEditSync {
+
+    private final Editor editor;
+    private final FileManager fileManager;
+    private final URI fileUri;
+    private final Runnable onSync;
+    private final List<PlainTextChange> pending = new ArrayList<>();
+    private long version;
+    private Subscription subscription;
+
+    /**
+     * @param onSync called after changes have been applied to the snapshot
+     */
+    SnapshotEditSync(Editor editor, FileManager fileManager, URI fileUri, Runnable onSync) {
+        this.editor = editor;
+        this.fileManager = fileManager;
+        this.fileUri = fileUri;
+        this.onSync = onSync;
+    }
+
+    /**
+     * Starts listening to the editor, whose text must be the content of the snapshot.
+     */
+    void start() {
+        version = currentVersion();
+        subscription = editor.getTextChangeEventStream().subscribe(this::onChange);
+    }
+
+    /**
+     * Applies the pending changes and stops listening to the editor.
+     */
+    void stop() {
+        if (subscription != null) {
+            flush();
+            subscription.unsubscribe();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Applies the pending changes now, for readers of the snapshot that cannot wait for the next
+     * pulse, such as completion.
+     */
+    void flush() {
+        if (!Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("Snapshot edits must be flushed on the FX thread");
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<TextEdit> edits = new ArrayList<>(pending.size());
+        for (PlainTextChange change : pending) {
+            edits.add(TextEdit.create(change.getPosition(), change.getRemovalEnd(), change.getInserted()));
+        }
+        pending.clear();
+
+        try {
+            version = fileManager.applyEditsToSnapshot(fileUri, version, edits);
+        } catch (IllegalStateException e) {
+            // the snapshot was changed outside this editor, resync it from the editor
+            fileManager.setSnapshotContent(fileUri, editor.getText());
+            version = currentVersion();
+        }
+        onSync.run();
+    }
+
+    private void onChange(PlainTextChange change) {
+        if (change.isIdentity()) {
+            return;
+        }
+        if (pending.isEmpty()) {
+            Platform.runLater(this::flush);
+        } else {
+            int last = pending.size() - 1;
+            Optional<PlainTextChange> merged = pending.get(last).mergeWith(change);
+            if (merged.isPresent()) {
+                pending.set(last, merged.get());
+                return;
+            }
+        }
+        pending.add(change);
+    }
+
+    private long currentVersion() {
+        return fileManager.getSnapshotVersion(Path.of(fileUri)).orElse(0L);
+    }
+}
@@ -57,14 +57,21 @@ public class FileSystemModuleManager implements ModuleManager {
     }
 
 
+    /**
+     * Indexes a new source file, or indexes an edited one again since its package may have changed.
+     */
     @Override
-    public void addOrUpdateFile(Path path) {
-        throw new UnsupportedOperationException();
+    public synchronized void addOrUpdateFile(Path path) {
+        removeFile(path);
+        addOrUpdateFile(javaModule, path);
     }
 
     @Override
-    public void removeFile(Path path) {
-
+    public synchronized void removeFile(Path path) {
+        javaModule.getSourceFiles().stream()
+                .filter(it -> path.equals(it.getPath()))
+                .toList()
+                .forEach(javaModule::removeClass);
     }
 
     @Override
@@ -1,7 +1,9 @@
 package com.tyron.code.project.impl.model;
 
 import com.tyron.code.info.ClassInfo;
+import com.tyron.code.info.ClassNameIndex;
 import com.tyron.code.project.ModuleManager;
+import com.tyron.code.project.model.PackageScope;
 import com.tyron.code.project.model.module.SourceModule;
 
 import java.nio.file.Path;
@@ -10,18 +12,41 @@ import java.util.Set;
 
 public class SourceModuleImpl<T extends ClassInfo> extends AbstractModule implements SourceModule<T> {
     private final Set<T> classInfos;
+    private final ClassNameIndex<T> classNameIndex;
+    private final PackageScope packageScope;
 
     public SourceModuleImpl(ModuleManager moduleManager, Path root) {
         super(moduleManager, root);
         this.classInfos = new HashSet<>();
+        this.classNameIndex = new ClassNameIndex<>();
+        this.packageScope = PackageScope.createRoot();
     }
 
     public void addClass(T info) {
         classInfos.add(info);
+        classNameIndex.add(info);
+        packageScope.addFile(info);
+    }
+
+    public void removeClass(T info) {
+        if (classInfos.remove(info)) {
+            classNameIndex.remove(info.getName());
+            packageScope.removeFile(info);
+        }
     }
 
     @Override
     public Set<T> getSourceFiles() {
         return classInfos;
     }
+
+    @Override
+    public ClassNameIndex<T> getClassNameIndex() {
+        return classNameIndex;
+    }
+
+    @Override
+    public PackageScope getPackageScope() {
+        return packageScope;
+    }
 }
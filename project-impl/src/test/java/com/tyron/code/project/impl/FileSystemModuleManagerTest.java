@@ -9,9 +9,11 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class FileSystemModuleManagerTest {
 
@@ -25,7 +27,7 @@ class FileSystemModuleManagerTest {
         root = Files.createTempDirectory("project");
         SimpleFileManager fileManager = new SimpleFileManager();
         manager = new FileSystemModuleManager(fileManager, root);
-        module = (JavaModuleImpl) manager.getRootModule();
+        module = (JavaModuleImpl) manager.getRootModule().getIncludedModules().get(0);
     }
 
     @Test
@@ -44,4 +46,41 @@ class FileSystemModuleManagerTest {
         assertEquals(testJavaFile, file.getPath());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testUpdatedFileMovesToItsNewPackage() throws IOException {
+        Path testJavaFile = root.resolve("Test.java");
+        Files.writeString(testJavaFile, "package com.first;\nclass Test {}\n");
+        manager.addOrUpdateFile(testJavaFile);
+        assertEquals(1, module.getPackageScope().findPackage("com.first").getFiles().size());
+
+        Files.writeString(testJavaFile, "package com.second;\nclass Test {}\n");
+        manager.addOrUpdateFile(testJavaFile);
+
+        assertEquals(1, module.getSourceFiles().size());
+        assertEquals("com/second/Test", module.getSourceFiles().iterator().next().getName());
+        assertNull(module.getPackageScope().findPackage("com.first"));
+        assertEquals(1, module.getPackageScope().findPackage("com.second").getFiles().size());
+    }
+
+    @Test
+    public void testClassNameIndexFollowsAddedAndUpdatedFiles() throws IOException {
+        manager.initialize();
+        Path testJavaFile = root.resolve("Test.java");
+        Files.writeString(testJavaFile, "package com.first;\nclass Test {}\n");
+        manager.addOrUpdateFile(testJavaFile);
+        assertEquals(List.of("com/first/Test"), simpleNameMatches("Test"));
+
+        Files.writeString(testJavaFile, "package com.second;\nclass Test {}\n");
+        manager.addOrUpdateFile(testJavaFile);
+        assertEquals(List.of("com/second/Test"), simpleNameMatches("Test"));
+
+        manager.removeFile(testJavaFile);
+        assertEquals(List.of(), simpleNameMatches("Test"));
+    }
+
+    private List<String> simpleNameMatches(String simpleName) {
+        return module.getClassNameIndex().findBySimpleName(simpleName).stream()
+                .map(SourceClassInfo::getName)
+                .toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.tyron.code.diagnostic;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The diagnostics reported for a file by one analysis.
+ *
+ * @param file        the analyzed file
+ * @param version     the snapshot version of the file that was analyzed
+ * @param diagnostics the diagnostics reported for the file
+ */
+public record FileDiagnostics(Path file, long version, List<Diagnostic> diagnostics) {
+
+    public static FileDiagnostics empty(Path file) {
+        return new FileDiagnostics(file, -1, ImmutableList.of());
+    }
+
+    public FileDiagnostics {
+        diagnostics = ImmutableList.copyOf(diagnostics);
+    }
+
+    /**
+     * @return the diagnostics that have to be added to and removed from {@code previous} to get
+     * to this set
+     */
+    public Delta delta(FileDiagnostics previous) {
+        Multiset<Diagnostic> remaining = HashMultiset.create(previous.diagnostics());
+        ImmutableList.Builder<Diagnostic> added = ImmutableList.builder();
+        for (Diagnostic diagnostic : diagnostics) {
+            if (!remaining.remove(diagnostic)) {
+                added.add(diagnostic);
+            }
+        }
+        return new Delta(file, version, added.build(), ImmutableList.copyOf(remaining));
+    }
+
+    /**
+     * Change between two consecutive diagnostic sets of a file.
+     *
+     * @param version the snapshot version the change brings the diagnostics to
+     */
+    public record Delta(Path file, long version, List<Diagnostic> added, List<Diagnostic> removed) {
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.tyron.code.info;
+
+import com.tyron.code.project.util.CamelHumps;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Index of classes by their simple name, used to find the classes matching a completion prefix.
+ *
+ * <p>Classes are kept in buckets by the first letter of their simple name and each bucket is sorted
+ * ignoring case. A match has to start with the first letter of the query, so a query only looks at
+ * one bucket: prefix matches are found by binary search, camel hump and subsequence matches by
+ * scanning the bucket, which is skipped when the prefix matches already fill the requested limit.
+ * Classes are also kept by their exact simple name, so resolving a simple name is a hash lookup.
+ *
+ * <p>Anonymous and local classes are not indexed since they can not be referenced by name.
+ */
+public class ClassNameIndex<T extends ClassInfo> {
+
+    /**
+     * How a simple name matches a query. The greater the ordinal, the better the match.
+     */
+    public enum MatchKind {
+        /** The query characters appear in order in the name, {@code ALst} for {@code ArrayList}. */
+        SUBSEQUENCE,
+        /** The query is made of prefixes of the words of the name, {@code ArLi} for {@code ArrayList}. */
+        CAMEL_HUMP,
+        PREFIX_IGNORE_CASE,
+        PREFIX,
+        EXACT
+    }
+
+    /**
+     * A class matching a query. Matches are ordered best first: by match kind, then shorter names
+     * first, then alphabetically.
+     */
+    public record Match<T extends ClassInfo>(T classInfo, MatchKind kind) implements Comparable<Match<?>> {
+
+        @Override
+        public int compareTo(@NotNull Match<?> other) {
+            int result = other.kind.compareTo(kind);
+            if (result != 0) {
+                return result;
+            }
+            String simpleName = classInfo.getSimpleName();
+            String otherSimpleName = other.classInfo.getSimpleName();
+            result = Integer.compare(simpleName.length(), otherSimpleName.length());
+            if (result != 0) {
+                return result;
+            }
+            result = simpleName.compareTo(otherSimpleName);
+            if (result != 0) {
+                return result;
+            }
+            return classInfo.getName().compareTo(other.classInfo.getName());
+        }
+    }
+
+    private record Entry<T extends ClassInfo>(String key, String simpleName, T classInfo) implements CamelHumps.Name {
+
+        @Override
+        public int length() {
+            return simpleName.length();
+        }
+
+        @Override
+        public char lowerCaseCharAt(int index) {
+            return Character.toLowerCase(simpleName.charAt(index));
+        }
+
+        @Override
+        public boolean isWordStart(int index) {
+            return CamelHumps.isWordStart(simpleName, index);
+        }
+    }
+
+    private static final Comparator<Entry<?>> ENTRY_ORDER = Comparator.<Entry<?>, String>comparing(Entry::key)
+            .thenComparing(Entry::simpleName)
+            .thenComparing(it -> it.classInfo().getName());
+
+    private static final int LETTERS = 26;
+
+    private final List<List<Entry<T>>> buckets;
+    private final Map<String, Entry<T>> entries;
+    private final Map<String, List<T>> bySimpleName;
+
+    public ClassNameIndex() {
+        buckets = new ArrayList<>(LETTERS + 1);
+        for (int i = 0; i <= LETTERS; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        entries = new HashMap<>();
+        bySimpleName = new HashMap<>();
+    }
+
+    /**
+     * Adds a class to the index, replacing the class with the same name if there is one.
+     */
+    public synchronized void add(T classInfo) {
+        remove(classInfo.getName());
+
+        String simpleName = classInfo.getSimpleName();
+        if (simpleName.isEmpty() || isAnonymousOrLocal(simpleName)) {
+            return;
+        }
+        Entry<T> entry = new Entry<>(simpleName.toLowerCase(), simpleName, classInfo);
+        List<Entry<T>> bucket = buckets.get(bucketOf(simpleName.charAt(0)));
+        int index = Collections.binarySearch(bucket, entry, ENTRY_ORDER);
+        bucket.add(index < 0 ? -index - 1 : index, entry);
+        entries.put(classInfo.getName(), entry);
+        bySimpleName.computeIfAbsent(simpleName, it -> new ArrayList<>(1)).add(classInfo);
+    }
+
+    /**
+     * @param name the internal name of the class, such as {@code java/util/Map$Entry}
+     */
+    public synchronized void remove(String name) {
+        Entry<T> entry = entries.remove(name);
+        if (entry == null) {
+            return;
+        }
+        List<Entry<T>> bucket = buckets.get(bucketOf(entry.simpleName().charAt(0)));
+        int index = Collections.binarySearch(bucket, entry, ENTRY_ORDER);
+        if (index >= 0) {
+            bucket.remove(index);
+        }
+        List<T> sameName = bySimpleName.get(entry.simpleName());
+        if (sameName != null && sameName.remove(entry.classInfo()) && sameName.isEmpty()) {
+            bySimpleName.remove(entry.simpleName());
+        }
+    }
+
+    /**
+     * @param simpleName the simple name of the class, such as {@code Map$Entry} for a nested class
+     * @return the classes with exactly this simple name
+     */
+    public synchronized List<T> findBySimpleName(String simpleName) {
+        List<T> classes = bySimpleName.get(simpleName);
+        return classes == null ? List.of() : List.copyOf(classes);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds the classes whose simple name matches {@code query}. The first character of the name
+     * always has to match the first character of the query, ignoring case.
+     *
+     * @param limit the maximum number of matches to return
+     * @return the best matches, best first, or an empty list if the query is empty
+     */
+    public synchronized List<Match<T>> search(String query, int limit) {
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String lowerQuery = query.toLowerCase();
+        List<Entry<T>> bucket = buckets.get(bucketOf(query.charAt(0)));
+
+        // worst match at the head, so it is the one dropped when over the limit
+        PriorityQueue<Match<T>> best = new PriorityQueue<>(Comparator.reverseOrder());
+
+        int start = lowerBound(bucket, lowerQuery);
+        int end = start;
+        for (; end < bucket.size() && bucket.get(end).key().startsWith(lowerQuery); end++) {
+            Entry<T> entry = bucket.get(end);
+            MatchKind kind;
+            if (entry.simpleName().equals(query)) {
+                kind = MatchKind.EXACT;
+            } else if (entry.simpleName().startsWith(query)) {
+                kind = MatchKind.PREFIX;
+            } else {
+                kind = MatchKind.PREFIX_IGNORE_CASE;
+            }
+            offer(best, new Match<>(entry.classInfo(), kind), limit);
+        }
+
+        // any prefix match ranks above the camel hump and subsequence matches
+        if (best.size() < limit && query.length() > 1) {
+            CamelHumps.Name camelHumpQuery = CamelHumps.name(query);
+            for (int i = 0; i < bucket.size(); i++) {
+                if (i == start && end > start) {
+                    // already matched as prefixes
+                    i = end - 1;
+                    continue;
+                }
+                Entry<T> entry = bucket.get(i);
+                String simpleName = entry.simpleName();
+                if (!sameIgnoringCase(simpleName.charAt(0), query.charAt(0))) {
+                    continue;
+                }
+                if (CamelHumps.matches(entry, camelHumpQuery)) {
+                    offer(best, new Match<>(entry.classInfo(), MatchKind.CAMEL_HUMP), limit);
+                } else if (isSubsequence(entry.key(), lowerQuery)) {
+                    offer(best, new Match<>(entry.classInfo(), MatchKind.SUBSEQUENCE), limit);
+                }
+            }
+        }
+
+        List<Match<T>> result = new ArrayList<>(best);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static <T extends ClassInfo> void offer(PriorityQueue<Match<T>> best, Match<T> match, int limit) {
+        best.add(match);
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    private static int lowerBound(List<? extends Entry<?>> bucket, String key) {
+        int low = 0;
+        int high = bucket.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bucket.get(mid).key().compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isSubsequence(String lowerName, String lowerQuery) {
+        int nameIndex = 0;
+        for (int i = 0; i < lowerQuery.length(); i++) {
+            nameIndex = lowerName.indexOf(lowerQuery.charAt(i), nameIndex) + 1;
+            if (nameIndex == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameIgnoringCase(char a, char b) {
+        return a == b || Character.toLowerCase(a) == Character.toLowerCase(b);
+    }
+
+    private static int bucketOf(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower >= 'a' && lower <= 'z' ? lower - 'a' : LETTERS;
+    }
+
+    private static boolean isAnonymousOrLocal(String simpleName) {
+        for (int i = simpleName.indexOf('$'); i >= 0; i = simpleName.indexOf('$', i + 1)) {
+            if (i + 1 < simpleName.length() && Character.isDigit(simpleName.charAt(i + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
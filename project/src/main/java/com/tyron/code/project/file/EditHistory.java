@@ -2,33 +2,173 @@ package com.tyron.code.project.file;
 
 
 import com.google.auto.value.AutoValue;
-import com.google.common.collect.ImmutableList;
-import com.tyron.code.project.model.TextRange;
+import com.tyron.code.project.model.TextEdit;
 
-import java.util.List;
 import java.util.Optional;
 
-@AutoValue
-public abstract class EditHistory {
-    public abstract String getOriginalContent();
+/**
+ * The changes made to a {@link FileSnapshot}, addressable by version.
+ *
+ * <p>Version {@code v} is the content after the {@code v}-th change, version 0 is the content the
+ * snapshot was opened with. For every version the history keeps only the changed range, in a ring
+ * of the last {@link #CAPACITY} versions, so its size does not grow with the length of a session.
+ * Every {@link #CHECKPOINT_INTERVAL} versions the changes since the previous checkpoint are
+ * compacted into a checkpoint, the range covering all of them. {@link #diff} combines checkpoints
+ * and single changes, so the range changed between any two retained versions is found in at most
+ * {@code 2 * CHECKPOINT_INTERVAL + CAPACITY / CHECKPOINT_INTERVAL} steps.
+ *
+ * <p>The history is updated by the snapshot and can be read from any thread.
+ */
+public final class EditHistory {
 
-    public abstract ImmutableList<AppliedEdit> getAppliedEdits();
+    static final int CAPACITY = 1024;
+    static final int CHECKPOINT_INTERVAL = 32;
 
-    public static EditHistory create(String originalContent, List<AppliedEdit> appliedEdits) {
-        return new AutoValue_EditHistory(originalContent, ImmutableList.copyOf(appliedEdits));
+    private static final int CHECKPOINTS = CAPACITY / CHECKPOINT_INTERVAL;
+
+    /** The change producing version {@code v} is at {@code v % CAPACITY}. */
+    private final int[] starts = new int[CAPACITY];
+    private final int[] oldEnds = new int[CAPACITY];
+    private final int[] newEnds = new int[CAPACITY];
+
+    /** The checkpoint of the versions {@code (k * CHECKPOINT_INTERVAL, (k + 1) * CHECKPOINT_INTERVAL]} is at {@code k % CHECKPOINTS}. */
+    private final int[] checkpointStarts = new int[CHECKPOINTS];
+    private final int[] checkpointOldEnds = new int[CHECKPOINTS];
+    private final int[] checkpointNewEnds = new int[CHECKPOINTS];
+
+    private long version;
+
+    /**
+     * @return the version of the last change, 0 if there was none
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the oldest version the changes since can still be computed for
+     */
+    public synchronized long getOldestVersion() {
+        return Math.max(0, version - CAPACITY);
+    }
+
+    /**
+     * @return the change from {@code version} to the current version, empty if {@code version}
+     * is no longer retained
+     */
+    public synchronized Optional<Change> changesSince(long version) {
+        return diff(version, this.version);
+    }
+
+    /**
+     * Computes the range that differs between two versions: the range {@code [start, oldEnd)} of
+     * version {@code from} was replaced with the range {@code [start, newEnd)} of version {@code to}.
+     *
+     * @return the change, empty if {@code from} is no longer retained or a version does not exist
+     */
+    public synchronized Optional<Change> diff(long from, long to) {
+        if (from < getOldestVersion() || from > to || to > version) {
+            return Optional.empty();
+        }
+        Range range = new Range();
+        long current = from;
+        while (current < to) {
+            if (current % CHECKPOINT_INTERVAL == 0 && current + CHECKPOINT_INTERVAL <= to) {
+                int index = (int) (current / CHECKPOINT_INTERVAL % CHECKPOINTS);
+                range.then(checkpointStarts[index], checkpointOldEnds[index], checkpointNewEnds[index]);
+                current += CHECKPOINT_INTERVAL;
+            } else {
+                current++;
+                int index = (int) (current % CAPACITY);
+                range.then(starts[index], oldEnds[index], newEnds[index]);
+            }
+        }
+        return Optional.of(Change.create(from, to, range.start, range.oldEnd, range.newEnd));
+    }
+
+    /**
+     * Records the next version, where {@code [start, oldEnd)} of the previous version was replaced
+     * with {@code [start, newEnd)}.
+     *
+     * @return the new version
+     */
+    synchronized long record(int start, int oldEnd, int newEnd) {
+        version++;
+        int index = (int) (version % CAPACITY);
+        starts[index] = start;
+        oldEnds[index] = oldEnd;
+        newEnds[index] = newEnd;
+
+        if (version % CHECKPOINT_INTERVAL == 0) {
+            Range range = new Range();
+            for (long v = version - CHECKPOINT_INTERVAL + 1; v <= version; v++) {
+                int i = (int) (v % CAPACITY);
+                range.then(starts[i], oldEnds[i], newEnds[i]);
+            }
+            int checkpoint = (int) ((version / CHECKPOINT_INTERVAL - 1) % CHECKPOINTS);
+            checkpointStarts[checkpoint] = range.start;
+            checkpointOldEnds[checkpoint] = range.oldEnd;
+            checkpointNewEnds[checkpoint] = range.newEnd;
+        }
+        return version;
+    }
+
+    /**
+     * The range changed by a sequence of changes, in the coordinates of the content before and
+     * after them.
+     */
+    static final class Range {
+        boolean empty = true;
+        int start;
+        int oldEnd;
+        int newEnd;
+
+        /**
+         * Adds a change applied after the changes of this range.
+         */
+        void then(int start, int oldEnd, int newEnd) {
+            if (empty) {
+                empty = false;
+                this.start = start;
+                this.oldEnd = oldEnd;
+                this.newEnd = newEnd;
+                return;
+            }
+            // the union of both ranges in the content between them, mapped to the content before
+            // the first change and after the second change
+            int firstDelta = this.newEnd - this.oldEnd;
+            int secondDelta = newEnd - oldEnd;
+            this.start = Math.min(this.start, start);
+            this.oldEnd = Math.max(this.oldEnd, oldEnd - firstDelta);
+            this.newEnd = Math.max(this.newEnd + secondDelta, newEnd);
+        }
     }
 
     @AutoValue
-    public abstract static class AppliedEdit {
-        public abstract TextRange getTextRange();
+    public abstract static class Change {
+        public abstract long getFromVersion();
+
+        public abstract long getToVersion();
 
-        public abstract Optional<Integer> getRangeLength();
+        /** @return the offset of the first changed character, in both versions. */
+        public abstract int getStart();
 
-        public abstract String getNewText();
+        /** @return the end of the changed range in the content of {@link #getFromVersion()}. */
+        public abstract int getOldEnd();
+
+        /** @return the end of the changed range in the content of {@link #getToVersion()}. */
+        public abstract int getNewEnd();
+
+        /**
+         * @param newContent the content of {@link #getToVersion()}
+         * @return the edit turning the content of {@link #getFromVersion()} into {@code newContent}
+         */
+        public TextEdit toTextEdit(CharSequence newContent) {
+            return TextEdit.create(getStart(), getOldEnd(), newContent.subSequence(getStart(), getNewEnd()).toString());
+        }
 
-        public static AppliedEdit create(
-                TextRange textRange, Optional<Integer> rangeLength, String newText) {
-            return new AutoValue_EditHistory_AppliedEdit(textRange, rangeLength, newText);
+        public static Change create(long fromVersion, long toVersion, int start, int oldEnd, int newEnd) {
+            return new AutoValue_EditHistory_Change(fromVersion, toVersion, start, oldEnd, newEnd);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,12 @@
 package com.tyron.code.project.file;
 
+import com.tyron.code.project.model.TextEdit;
 import com.tyron.code.project.model.TextRange;
 
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 
 /** Manages all files for the same project. */
@@ -31,6 +33,22 @@ public interface FileManager {
     void applyEditToSnapshot(
             URI fileUri, TextRange editRange, Optional<Integer> rangeLength, String newText);
 
+    /**
+     * Applies a batch of edits to a file opened for snapshotting, as one change.
+     *
+     * <p>The edits are applied in order, each edit relative to the content produced by the edits
+     * before it. The batch is only applied if the snapshot is still at {@code version}, the version
+     * the edits were made against; otherwise the caller is out of sync with the snapshot and should
+     * replace its content with {@link #setSnapshotContent}.
+     *
+     * @param fileUri the URI to identify the file snapshot opened by {@link #openFileForSnapshot}
+     * @param version the version of the snapshot the edits apply to
+     * @param edits the edits to apply
+     * @return the version of the snapshot after the edits
+     * @throws IllegalStateException if the file is not opened or the snapshot is not at {@code version}
+     */
+    long applyEditsToSnapshot(URI fileUri, long version, List<TextEdit> edits);
+
     /**
      * Replace the content of the file snapshot.
      *
@@ -63,6 +81,14 @@ public interface FileManager {
 
     boolean isFileOpen(Path file);
 
+    /**
+     * Gets the version of a file opened for snapshotting.
+     *
+     * <p>The version is zero when the file is opened and increases with every change applied to the
+     * snapshot. It's only present if the file is opened for snapshotting.
+     */
+    Optional<Long> getSnapshotVersion(Path filePath);
+
     /**
      * Gets the edit history of a file.
      *
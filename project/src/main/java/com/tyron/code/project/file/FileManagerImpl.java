@@ -3,6 +3,7 @@ package com.tyron.code.project.file;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.collect.ImmutableList;
+import com.tyron.code.project.model.TextEdit;
 import com.tyron.code.project.model.TextRange;
 import com.tyron.code.project.util.PathUtils;
 
@@ -96,6 +97,25 @@ public class FileManagerImpl implements FileManager {
         fileWatcher.notifyFileChange(filePath, StandardWatchEventKinds.ENTRY_MODIFY);
     }
 
+    @Override
+    public long applyEditsToSnapshot(URI fileUri, long version, List<TextEdit> edits) {
+        Path filePath = uriToNormalizedPath(fileUri);
+        FileSnapshot snapshot = fileSnapshots.get(filePath);
+        if (snapshot == null) {
+            throw new IllegalStateException(
+                    String.format("Cannot apply edit to file %s: file is not opened.", fileUri));
+        }
+        if (snapshot.getVersion() != version) {
+            throw new IllegalStateException(
+                    String.format("Cannot apply edit to file %s: edits are for version %d, the snapshot is at version %d.",
+                            fileUri, version, snapshot.getVersion()));
+        }
+
+        snapshot.applyEdits(edits);
+        fileWatcher.notifyFileChange(filePath, StandardWatchEventKinds.ENTRY_MODIFY);
+        return snapshot.getVersion();
+    }
+
     @Override
     public void setSnapshotContent(URI fileUri, String newText) {
         Path filePath = uriToNormalizedPath(fileUri);
@@ -179,6 +199,11 @@ public class FileManagerImpl implements FileManager {
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Long> getSnapshotVersion(Path filePath) {
+        return Optional.ofNullable(fileSnapshots.get(filePath.normalize())).map(FileSnapshot::getVersion);
+    }
+
     @Override
     public boolean isFileOpen(Path file) {
         return fileSnapshots.containsKey(file);
@@ -1,45 +1,43 @@
 package com.tyron.code.project.file;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.tyron.code.project.file.EditHistory.*;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 
 import java.net.URI;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+import com.tyron.code.project.model.TextEdit;
 import com.tyron.code.project.model.TextPosition;
 import com.tyron.code.project.model.TextRange;
 import shadow.javax.tools.SimpleJavaFileObject;
 
-/** Snapshot of the content of a file. */
+/**
+ * Snapshot of the content of a file.
+ *
+ * <p>The content is a {@link Rope}, each edit creates a new version of it. The content returned by
+ * {@link #getCharContent} is never modified, it can be read while the snapshot is edited.
+ */
 public class FileSnapshot extends SimpleJavaFileObject {
-    private static final Pattern LINE_END_PATTERN = Pattern.compile("$", Pattern.MULTILINE);
+    private final EditHistory editHistory;
 
-    private CharSequence originalContent;
-    private List<AppliedEdit> appliedEdits;
-
-    private StringBuilder content;
+    private volatile Rope content;
     /** Maps line number to the position of the start of the line in the content string. */
-    private final List<Integer> lineNumberMap;
+    private final LineIndex lineIndex;
 
-    private FileSnapshot(URI fileUri, String content) {
+    private FileSnapshot(URI fileUri, CharSequence content) {
         super(fileUri, Kind.SOURCE);
-        this.content = new StringBuilder(content);
-        this.originalContent = this.content;
-        this.lineNumberMap = new ArrayList<>();
-        this.appliedEdits = new LinkedList<>();
-        remapLines();
+        this.content = Rope.of(content);
+        this.lineIndex = new LineIndex(content);
+        this.editHistory = new EditHistory();
     }
 
     /**
      * Loads the content of a file from {@code filename} and creates a {@link FileSnapshot} with the
      * content.
      */
-    public static FileSnapshot create(URI fileUri, String content) {
+    public static FileSnapshot create(URI fileUri, CharSequence content) {
         if (fileUri.toString().contains("Another")) {
             System.out.println();
         }
@@ -47,7 +45,7 @@ public class FileSnapshot extends SimpleJavaFileObject {
     }
 
     @Override
-    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+    public Rope getCharContent(boolean ignoreEncodingErrors) {
         return content;
     }
 
@@ -55,8 +53,18 @@ public class FileSnapshot extends SimpleJavaFileObject {
         return content.toString();
     }
 
+    /**
+     * @return the number of changes applied to the snapshot since it was created
+     */
+    public long getVersion() {
+        return editHistory.getVersion();
+    }
+
+    /**
+     * @return the history of the changes, updated as the snapshot is edited
+     */
     public EditHistory getEditHistory() {
-        return EditHistory.create(originalContent.toString(), appliedEdits);
+        return editHistory;
     }
 
     /**
@@ -67,11 +75,6 @@ public class FileSnapshot extends SimpleJavaFileObject {
      * @param newText the new content to replace the original content with {@code editRange}
      */
     public void applyEdit(TextRange editRange, Optional<Integer> rangeLength, String newText) {
-        if (this.originalContent == this.content) {
-            this.originalContent = this.content.toString();
-        }
-        appliedEdits.add(AppliedEdit.create(editRange, rangeLength, newText));
-
         int start = getPositionOffset(editRange.getStart());
         int end = getPositionOffset(editRange.getEnd());
         checkArgument(start <= end, "Range start is after range end.");
@@ -81,23 +84,59 @@ public class FileSnapshot extends SimpleJavaFileObject {
             end = Math.min(end, start + rangeLength.get());
         }
 
-        if (Strings.isNullOrEmpty(newText)) {
-            if (start < end) {
-                content.delete(start, end);
-            }
-        } else if (start < end) {
-            content.replace(start, end, newText);
-        } else {
-            content.insert(start, newText);
+        String text = Strings.nullToEmpty(newText);
+        replace(start, end, text);
+        editHistory.record(start, end, start + text.length());
+    }
+
+    /**
+     * Applies a batch of changes to the content as one change, each change relative to the content
+     * produced by the changes before it.
+     *
+     * <p>The cost is proportional to the size of the changes, not to the size of the content.
+     */
+    public void applyEdits(List<TextEdit> edits) {
+        // check the whole batch first so that it is applied either completely or not at all
+        int length = content.length();
+        for (TextEdit edit : edits) {
+            checkArgument(edit.getEnd() <= length, "Edit end %s is after the end of the content.", edit.getEnd());
+            length += edit.getNewText().length() - (edit.getEnd() - edit.getStart());
+        }
+        EditHistory.Range range = new EditHistory.Range();
+        for (TextEdit edit : edits) {
+            int newEnd = edit.getStart() + edit.getNewText().length();
+            replace(edit.getStart(), edit.getEnd(), edit.getNewText());
+            range.then(edit.getStart(), edit.getEnd(), newEnd);
         }
+        editHistory.record(range.start, range.oldEnd, range.newEnd);
+    }
 
-        remapLines();
+    private void replace(int start, int end, String text) {
+        Rope newContent = content.replace(start, end, text);
+        lineIndex.replace(newContent, start, end, start + text.length());
+        content = newContent;
     }
 
     public void setContent(String newText) {
-        this.content = new StringBuilder(newText);
+        int oldLength = content.length();
+        lineIndex.reset(newText);
+        this.content = Rope.of(newText);
+
+        editHistory.record(0, oldLength, newText.length());
+    }
 
-        remapLines();
+    public int getLineCount() {
+        return lineIndex.getLineCount();
+    }
+
+    /**
+     * @param offset an offset in the content, up to and including its length
+     * @return the line and the character of the offset
+     */
+    public TextPosition getPosition(int offset) {
+        checkArgument(offset >= 0 && offset <= content.length(), "Offset %s out of range.", offset);
+        int line = lineIndex.getLine(offset);
+        return TextPosition.create(line, offset - lineIndex.getLineStart(line));
     }
 
     @Override
@@ -115,7 +154,7 @@ public class FileSnapshot extends SimpleJavaFileObject {
 
     private int getPositionOffset(TextPosition position) {
         checkArgument(
-                position.getLine() >= 0 && position.getLine() < lineNumberMap.size(),
+                position.getLine() >= 0 && position.getLine() < lineIndex.getLineCount(),
                 "Line number %s out of range.",
                 position.getLine());
         checkArgument(
@@ -123,31 +162,7 @@ public class FileSnapshot extends SimpleJavaFileObject {
                 "Position character %s is negative.",
                 position.getCharacter());
         return Math.min(
-                content.length(), lineNumberMap.get(position.getLine()) + position.getCharacter());
-    }
-
-    private void remapLines() {
-        lineNumberMap.clear();
-
-        Matcher matcher = LINE_END_PATTERN.matcher(content);
-        int start = 0;
-        lineNumberMap.add(start);
-        while (matcher.find(start)) {
-            int end = matcher.end();
-            if (end == content.length()) {
-                break;
-            }
-            if (content.charAt(end) == '\r'
-                    && end < content.length() - 1
-                    && content.charAt(end + 1) == '\n') {
-                // Count for the extra "\n" in "\r\n" sequence.
-                end++;
-            }
-            // Count for the matched line terminator.
-            end++;
-            start = end;
-            lineNumberMap.add(start);
-        }
+                content.length(), lineIndex.getLineStart(position.getLine()) + position.getCharacter());
     }
 
     @VisibleForTesting
@@ -0,0 +1,151 @@
+package com.tyron.code.project.file;
+
+import java.util.Arrays;
+
+/**
+ * The offsets where the lines of a text start, updated as the text is edited.
+ *
+ * <p>The line starts are kept in a gap buffer. Line starts before the gap are stored as offsets
+ * from the start of the text, line starts after the gap as distances from the end of the text, so
+ * an edit does not have to shift the lines after it. An edit moves the gap to the edited lines,
+ * which costs as many lines as the gap moves, then replaces the line starts within the edit.
+ *
+ * <p>Lines end with {@code \n}, {@code \r\n}, {@code \r}, {@code \u0085}, {@code \u2028} or
+ * {@code \u2029}, the line terminators of {@link java.util.regex.Pattern}. A text ending with a
+ * line terminator ends with an empty line.
+ */
+final class LineIndex {
+
+    private static final int MIN_GAP = 16;
+
+    private int[] starts = new int[MIN_GAP];
+    private int gapStart;
+    private int gapEnd = MIN_GAP;
+    private int length;
+
+    LineIndex(CharSequence content) {
+        reset(content);
+    }
+
+    /**
+     * Indexes the lines of a new text.
+     */
+    void reset(CharSequence content) {
+        gapStart = 0;
+        gapEnd = starts.length;
+        length = content.length();
+        insert(0);
+        insertLineStarts(content, 1, length);
+    }
+
+    /**
+     * Updates the line starts after {@code [start, oldEnd)} of the text has been replaced with
+     * {@code [start, newEnd)} of {@code content}.
+     *
+     * @param content the text after the edit
+     */
+    void replace(CharSequence content, int start, int oldEnd, int newEnd) {
+        // a line start depends on the characters before and at it, so the line starts from the
+        // start of the edit up to and including its end are computed again
+        int from = Math.max(start, 1);
+        int removeFrom = lowerBound(from);
+        int removeTo = lowerBound(oldEnd + 1);
+        moveGap(removeFrom);
+        gapEnd += removeTo - removeFrom;
+        length = content.length();
+        insertLineStarts(content, from, newEnd);
+    }
+
+    int getLineCount() {
+        return starts.length - (gapEnd - gapStart);
+    }
+
+    int getLineStart(int line) {
+        if (line < 0 || line >= getLineCount()) {
+            throw new IndexOutOfBoundsException(line);
+        }
+        return line < gapStart ? starts[line] : length - starts[line + gapEnd - gapStart];
+    }
+
+    /**
+     * @return the line containing {@code offset}, the last line for the length of the text
+     */
+    int getLine(int offset) {
+        if (offset < 0 || offset > length) {
+            throw new IndexOutOfBoundsException(offset);
+        }
+        return lowerBound(offset + 1) - 1;
+    }
+
+    /**
+     * Adds the line starts within {@code [from, to]} of {@code content} at the gap.
+     *
+     * @param from the first offset that may start a line, at least 1
+     */
+    private void insertLineStarts(CharSequence content, int from, int to) {
+        for (int offset = from; offset <= to; offset++) {
+            if (isLineStart(content, offset)) {
+                insert(offset);
+            }
+        }
+    }
+
+    private void insert(int offset) {
+        if (gapStart == gapEnd) {
+            int gap = Math.max(MIN_GAP, starts.length / 2);
+            int[] grown = new int[starts.length + gap];
+            System.arraycopy(starts, 0, grown, 0, gapStart);
+            int after = starts.length - gapEnd;
+            System.arraycopy(starts, gapEnd, grown, grown.length - after, after);
+            gapEnd = grown.length - after;
+            starts = grown;
+        }
+        starts[gapStart++] = offset;
+    }
+
+    /**
+     * Moves the gap before the line {@code line}.
+     */
+    private void moveGap(int line) {
+        while (gapStart > line) {
+            starts[--gapEnd] = length - starts[--gapStart];
+        }
+        while (gapStart < line) {
+            starts[gapStart++] = length - starts[gapEnd++];
+        }
+    }
+
+    /**
+     * @return the first line starting at or after {@code offset}
+     */
+    private int lowerBound(int offset) {
+        int low = 0;
+        int high = getLineCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getLineStart(mid) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isLineStart(CharSequence content, int offset) {
+        char c = content.charAt(offset - 1);
+        if (c == '\r') {
+            return offset == content.length() || content.charAt(offset) != '\n';
+        }
+        return c == '\n' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    @Override
+    public String toString() {
+        int[] lines = new int[getLineCount()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = getLineStart(i);
+        }
+        return Arrays.toString(lines);
+    }
+}
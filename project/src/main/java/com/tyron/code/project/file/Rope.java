@@ -0,0 +1,261 @@
+package com.tyron.code.project.file;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * An immutable text stored as a balanced tree of chunks, so editing it creates a new version in
+ * O(log n) that shares everything but the edited path with the previous version.
+ *
+ * <p>The tree is an AVL tree ordered by offset: leaves hold up to {@link #MAX_LEAF} characters,
+ * inner nodes concatenate their children. {@link #insert}, {@link #delete}, {@link #replace} and
+ * {@link #subSequence} split and join the tree along one path. A small insertion is merged into
+ * the leaf next to it, so typing does not grow the number of leaves.
+ *
+ * <p>Versions are never modified, a version can be read by any number of threads while newer
+ * versions are created. {@link #toString()} copies the text once and keeps the copy, since javac
+ * reads its sources as strings.
+ */
+public final class Rope implements CharSequence {
+
+    static final int MAX_LEAF = 2048;
+
+    private static final Leaf EMPTY_LEAF = new Leaf("");
+
+    public static final Rope EMPTY = new Rope(EMPTY_LEAF, "");
+
+    private final Node root;
+    /** The text of this rope, computed once it is asked for. */
+    private String string;
+
+    private Rope(Node root, String string) {
+        this.root = root;
+        this.string = string;
+    }
+
+    public static Rope of(CharSequence text) {
+        if (text instanceof Rope rope) {
+            return rope;
+        }
+        if (text.length() == 0) {
+            return EMPTY;
+        }
+        String string = text.toString();
+        int leaves = (string.length() + MAX_LEAF - 1) / MAX_LEAF;
+        return new Rope(build(string, 0, leaves), string);
+    }
+
+    /**
+     * Builds a balanced tree of the leaves {@code [from, to)} of {@code text}.
+     */
+    private static Node build(String text, int from, int to) {
+        if (to - from == 1) {
+            return new Leaf(text.substring(from * MAX_LEAF, Math.min(text.length(), (from + 1) * MAX_LEAF)));
+        }
+        int mid = (from + to) >>> 1;
+        return new Concat(build(text, from, mid), build(text, mid, to));
+    }
+
+    public Rope insert(int index, CharSequence text) {
+        return replace(index, index, text);
+    }
+
+    public Rope delete(int start, int end) {
+        return replace(start, end, "");
+    }
+
+    /**
+     * @return a rope where {@code [start, end)} of this rope is replaced with {@code text}
+     */
+    public Rope replace(int start, int end, CharSequence text) {
+        Objects.checkFromToIndex(start, end, length());
+        if (start == end && text.length() == 0) {
+            return this;
+        }
+        Node[] head = split(root, start);
+        Node tail = split(head[1], end - start)[1];
+        Node inserted = text.length() == 0 ? EMPTY_LEAF : of(text).root;
+        return new Rope(join(join(head[0], inserted), tail), null);
+    }
+
+    @Override
+    public int length() {
+        return root.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length());
+        Node node = root;
+        while (node instanceof Concat concat) {
+            if (index < concat.left.length) {
+                node = concat.left;
+            } else {
+                index -= concat.left.length;
+                node = concat.right;
+            }
+        }
+        return ((Leaf) node).text.charAt(index);
+    }
+
+    @Override
+    public @NotNull Rope subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length());
+        if (start == 0 && end == length()) {
+            return this;
+        }
+        Node[] head = split(root, end);
+        return new Rope(split(head[0], start)[1], null);
+    }
+
+    /**
+     * Copies {@code [srcBegin, srcEnd)} of this rope into {@code dst}, like
+     * {@link String#getChars(int, int, char[], int)}.
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        Objects.checkFromToIndex(srcBegin, srcEnd, length());
+        Objects.checkFromIndexSize(dstBegin, srcEnd - srcBegin, dst.length);
+        getChars(root, srcBegin, srcEnd, dst, dstBegin);
+    }
+
+    private static void getChars(Node node, int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        if (srcBegin >= srcEnd) {
+            return;
+        }
+        if (node instanceof Leaf leaf) {
+            leaf.text.getChars(srcBegin, srcEnd, dst, dstBegin);
+            return;
+        }
+        Concat concat = (Concat) node;
+        int leftLength = concat.left.length;
+        if (srcBegin < leftLength) {
+            getChars(concat.left, srcBegin, Math.min(srcEnd, leftLength), dst, dstBegin);
+        }
+        if (srcEnd > leftLength) {
+            int rightBegin = Math.max(srcBegin, leftLength);
+            getChars(concat.right, rightBegin - leftLength, srcEnd - leftLength, dst, dstBegin + rightBegin - srcBegin);
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        String string = this.string;
+        if (string == null) {
+            char[] chars = new char[length()];
+            getChars(root, 0, chars.length, chars, 0);
+            string = this.string = new String(chars);
+        }
+        return string;
+    }
+
+    /**
+     * @return the depth of the tree, for tests
+     */
+    int depth() {
+        return root.depth;
+    }
+
+    /**
+     * Splits a tree at {@code index}.
+     *
+     * @return the tree before the index and the tree after it
+     */
+    private static Node[] split(Node node, int index) {
+        if (index == 0) {
+            return new Node[]{EMPTY_LEAF, node};
+        }
+        if (index == node.length) {
+            return new Node[]{node, EMPTY_LEAF};
+        }
+        if (node instanceof Leaf leaf) {
+            return new Node[]{new Leaf(leaf.text.substring(0, index)), new Leaf(leaf.text.substring(index))};
+        }
+        Concat concat = (Concat) node;
+        if (index <= concat.left.length) {
+            Node[] left = split(concat.left, index);
+            return new Node[]{left[0], join(left[1], concat.right)};
+        }
+        Node[] right = split(concat.right, index - concat.left.length);
+        return new Node[]{join(concat.left, right[0]), right[1]};
+    }
+
+    /**
+     * Concatenates two balanced trees into a balanced tree, descending the taller tree to the
+     * depth of the other one.
+     */
+    private static Node join(Node left, Node right) {
+        if (left.length == 0) {
+            return right;
+        }
+        if (right.length == 0) {
+            return left;
+        }
+        if (left instanceof Leaf leftLeaf && right instanceof Leaf rightLeaf
+                && left.length + right.length <= MAX_LEAF) {
+            return new Leaf(leftLeaf.text + rightLeaf.text);
+        }
+        if (left.depth > right.depth + 1) {
+            Concat concat = (Concat) left;
+            return balance(concat.left, join(concat.right, right));
+        }
+        if (right.depth > left.depth + 1) {
+            Concat concat = (Concat) right;
+            return balance(join(left, concat.left), concat.right);
+        }
+        return new Concat(left, right);
+    }
+
+    /**
+     * Concatenates two balanced trees whose depths differ by at most two.
+     */
+    private static Node balance(Node left, Node right) {
+        if (left.depth > right.depth + 1) {
+            Concat concat = (Concat) left;
+            if (concat.left.depth >= concat.right.depth) {
+                return new Concat(concat.left, new Concat(concat.right, right));
+            }
+            Concat inner = (Concat) concat.right;
+            return new Concat(new Concat(concat.left, inner.left), new Concat(inner.right, right));
+        }
+        if (right.depth > left.depth + 1) {
+            Concat concat = (Concat) right;
+            if (concat.right.depth >= concat.left.depth) {
+                return new Concat(new Concat(left, concat.left), concat.right);
+            }
+            Concat inner = (Concat) concat.left;
+            return new Concat(new Concat(left, inner.left), new Concat(inner.right, concat.right));
+        }
+        return new Concat(left, right);
+    }
+
+    private abstract static class Node {
+        final int length;
+        final int depth;
+
+        Node(int length, int depth) {
+            this.length = length;
+            this.depth = depth;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final String text;
+
+        Leaf(String text) {
+            super(text.length(), 0);
+            this.text = text;
+        }
+    }
+
+    private static final class Concat extends Node {
+        final Node left;
+        final Node right;
+
+        Concat(Node left, Node right) {
+            super(left.length + right.length, Math.max(left.depth, right.depth) + 1);
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
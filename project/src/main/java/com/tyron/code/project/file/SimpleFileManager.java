@@ -3,6 +3,7 @@ package com.tyron.code.project.file;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.collect.ImmutableList;
+import com.tyron.code.project.model.TextEdit;
 import com.tyron.code.project.model.TextRange;
 import com.tyron.code.project.util.PathUtils;
 
@@ -29,6 +30,7 @@ public class SimpleFileManager implements FileManager {
     private final Path rootPath;
     private final List<PathMatcher> ignorePathMatchers;
     private final Map<Path, String> snapshots;
+    private final Map<Path, Long> snapshotVersions;
 
     public SimpleFileManager() {
         this(Paths.get(".").toAbsolutePath().normalize(), ImmutableList.of());
@@ -42,11 +44,13 @@ public class SimpleFileManager implements FileManager {
                         .map(fs::getPathMatcher)
                         .collect(Collectors.collectingAndThen(Collectors.toList(), ImmutableList::copyOf));
         this.snapshots = new HashMap<>();
+        this.snapshotVersions = new HashMap<>();
     }
 
     @Override
     public void openFileForSnapshot(URI fileUri, String content) {
         snapshots.put(Paths.get(fileUri), content);
+        snapshotVersions.put(Paths.get(fileUri), 0L);
     }
 
     @Override
@@ -55,17 +59,33 @@ public class SimpleFileManager implements FileManager {
         // No-op
     }
 
+    @Override
+    public long applyEditsToSnapshot(URI fileUri, long version, List<TextEdit> edits) {
+        Path path = Paths.get(fileUri);
+        if (!snapshots.containsKey(path) || snapshotVersions.get(path) != version) {
+            throw new IllegalStateException("Snapshot of " + fileUri + " is not at version " + version);
+        }
+        StringBuilder content = new StringBuilder(snapshots.get(path));
+        for (TextEdit edit : edits) {
+            content.replace(edit.getStart(), edit.getEnd(), edit.getNewText());
+        }
+        snapshots.put(path, content.toString());
+        return snapshotVersions.merge(path, 1L, Long::sum);
+    }
+
     @Override
     public void setSnapshotContent(URI fileUri, String newText) {
         Path path = Paths.get(fileUri);
         if (snapshots.containsKey(path)) {
             snapshots.put(path, newText);
+            snapshotVersions.merge(path, 1L, Long::sum);
         }
     }
 
     @Override
     public void closeFileForSnapshot(URI fileUri) {
         snapshots.remove(Paths.get(fileUri));
+        snapshotVersions.remove(Paths.get(fileUri));
     }
 
     @Override
@@ -96,6 +116,11 @@ public class SimpleFileManager implements FileManager {
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Long> getSnapshotVersion(Path filePath) {
+        return Optional.ofNullable(snapshotVersions.get(filePath.toAbsolutePath()));
+    }
+
     @Override
     public boolean isFileOpen(Path file) {
         return snapshots.containsKey(file);
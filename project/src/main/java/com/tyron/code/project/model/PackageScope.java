@@ -1,23 +1,36 @@
 package com.tyron.code.project.model;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Multimap;
+import com.tyron.code.info.ClassInfo;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.HashSet;
-import java.util.List;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * A package in the package tree of a module, holding the classes declared directly in the package
+ * and its direct sub packages. The tree is created from the root package, {@link #addFile(ClassInfo)}
+ * and {@link #removeFile(ClassInfo)} create and prune the packages on the way to the class.
+ */
 public class PackageScope {
 
-    private final Multimap<String, PackageScope> subPackages;
+    private final Map<String, PackageScope> subPackages;
 
-    private final Set<JavaFileInfo> files;
+    private final Set<ClassInfo> files;
 
     private final String simpleName;
 
     private final PackageScope parent;
 
+    /**
+     * @return a root package, which is the default package
+     */
+    public static PackageScope createRoot() {
+        return new PackageScope(null, "");
+    }
+
     public PackageScope(String simpleName) {
         this(null, simpleName);
     }
@@ -25,17 +38,20 @@ public class PackageScope {
     public PackageScope(PackageScope parent, String simpleName) {
         this.parent = parent;
         this.simpleName = simpleName;
-        this.subPackages = ArrayListMultimap.create();
-        this.files = new HashSet<>();
-
+        this.subPackages = new ConcurrentHashMap<>();
+        this.files = ConcurrentHashMap.newKeySet();
     }
 
-    public List<PackageScope> getSubPackages(String name) {
-        return ImmutableList.copyOf(subPackages.get(name));
+    /**
+     * @param name the simple name of the sub package
+     */
+    @Nullable
+    public PackageScope getSubPackage(String name) {
+        return subPackages.get(name);
     }
 
-    public List<PackageScope> getSubPackages() {
-        return ImmutableList.copyOf(subPackages.values());
+    public Collection<PackageScope> getSubPackages() {
+        return Collections.unmodifiableCollection(subPackages.values());
     }
 
     public void addPackage(PackageScope newPackageScope) {
@@ -46,27 +62,94 @@ public class PackageScope {
         subPackages.remove(packageScope.getSimpleName(), packageScope);
     }
 
+    /**
+     * Finds a package relative to this one.
+     *
+     * @param packageName the package name, separated by either {@code '.'} or {@code '/'}
+     * @return the package, or {@code null} if no class has been added to it or its sub packages
+     */
+    @Nullable
+    public PackageScope findPackage(String packageName) {
+        PackageScope current = this;
+        int start = 0;
+        while (current != null && start < packageName.length()) {
+            int end = nextSeparator(packageName, start);
+            current = current.getSubPackage(packageName.substring(start, end));
+            start = end + 1;
+        }
+        return current;
+    }
+
     public String getSimpleName() {
         return this.simpleName;
     }
 
-    public Set<JavaFileInfo> getFiles() {
-        return files;
+    /**
+     * @return the name of this package separated by {@code '.'}, empty for the root package
+     */
+    public String getQualifiedName() {
+        if (parent == null || parent.parent == null) {
+            return simpleName;
+        }
+        return parent.getQualifiedName() + "." + simpleName;
     }
 
-    public void addFile(JavaFileInfo file) {
-        files.add(file);
+    /**
+     * @return the classes declared directly in this package
+     */
+    public Set<ClassInfo> getFiles() {
+        return Collections.unmodifiableSet(files);
+    }
+
+    /**
+     * Adds a class to the package of the class relative to this package, creating the packages that
+     * do not exist yet.
+     */
+    public void addFile(ClassInfo file) {
+        PackageScope current = this;
+        String packageName = file.getPackageName();
+        int start = 0;
+        while (packageName != null && start < packageName.length()) {
+            int end = nextSeparator(packageName, start);
+            String name = packageName.substring(start, end);
+            PackageScope parent = current;
+            current = parent.subPackages.computeIfAbsent(name, it -> new PackageScope(parent, it));
+            start = end + 1;
+        }
+        current.files.add(file);
     }
 
     public PackageScope getParent() {
         return parent;
     }
 
-    public void removeFile(JavaFileInfo file) {
-        files.remove(file);
+    /**
+     * Removes a class added with {@link #addFile(ClassInfo)}, along with the packages that become
+     * empty.
+     */
+    public void removeFile(ClassInfo file) {
+        String packageName = file.getPackageName();
+        PackageScope scope = packageName == null ? this : findPackage(packageName);
+        if (scope == null || !scope.files.remove(file)) {
+            return;
+        }
+        while (scope != this && !scope.hasChildren() && scope.parent != null) {
+            scope.parent.removePackage(scope);
+            scope = scope.parent;
+        }
     }
 
     public boolean hasChildren() {
         return !(subPackages.isEmpty() && files.isEmpty());
     }
+
+    private static int nextSeparator(String packageName, int start) {
+        for (int i = start; i < packageName.length(); i++) {
+            char c = packageName.charAt(i);
+            if (c == '.' || c == '/') {
+                return i;
+            }
+        }
+        return packageName.length();
+    }
 }
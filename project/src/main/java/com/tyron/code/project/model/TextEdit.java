@@ -0,0 +1,29 @@
+package com.tyron.code.project.model;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * A replacement of the characters between two offsets of a text document.
+ *
+ * <p>The offsets are relative to the text the edit is applied to. When edits are applied one after
+ * another, each edit is relative to the text produced by the edits before it.
+ */
+@AutoValue
+public abstract class TextEdit {
+
+    /** @return the offset of the first replaced character. */
+    public abstract int getStart();
+
+    /** @return the offset after the last replaced character, exclusive. */
+    public abstract int getEnd();
+
+    /** @return the text replacing {@code [start, end)}. */
+    public abstract String getNewText();
+
+    public static TextEdit create(int start, int end, String newText) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid edit range [" + start + ", " + end + ")");
+        }
+        return new AutoValue_TextEdit(start, end, newText);
+    }
+}
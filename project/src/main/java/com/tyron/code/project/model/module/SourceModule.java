@@ -1,10 +1,24 @@
 package com.tyron.code.project.model.module;
 
 import com.tyron.code.info.ClassInfo;
+import com.tyron.code.info.ClassNameIndex;
+import com.tyron.code.project.model.PackageScope;
 
 import java.util.Set;
 
 public interface SourceModule<T extends ClassInfo>  extends Module {
 
     Set<T> getSourceFiles();
+
+    /**
+     * @return the index of the simple names of the classes of this module, kept up to date as
+     * classes are added
+     */
+    ClassNameIndex<T> getClassNameIndex();
+
+    /**
+     * @return the root of the package tree of the classes of this module, kept up to date as
+     * classes are added and removed
+     */
+    PackageScope getPackageScope();
 }
@@ -0,0 +1,119 @@
+package com.tyron.code.project.util;
+
+import java.util.BitSet;
+
+/**
+ * Matching of a prefix against the words of a name, {@code ArLi} for {@code ArrayList}.
+ *
+ * <p>A word starts at the first character, at an uppercase letter, at the first digit of a run of
+ * digits and after an underscore or a dollar sign, so {@code getHTTPResponse_code} starts words at
+ * {@code g}, {@code H}, {@code T}, {@code T}, {@code P}, {@code R} and {@code c}.
+ */
+public final class CamelHumps {
+
+    /**
+     * A name as seen by the matcher, implementations may precompute the lowercase characters and
+     * the word starts.
+     */
+    public interface Name {
+
+        int length();
+
+        char lowerCaseCharAt(int index);
+
+        boolean isWordStart(int index);
+    }
+
+    private CamelHumps() {
+    }
+
+    /**
+     * @return a name computing its lowercase characters and word starts on every call
+     */
+    public static Name name(CharSequence name) {
+        return new Name() {
+            @Override
+            public int length() {
+                return name.length();
+            }
+
+            @Override
+            public char lowerCaseCharAt(int index) {
+                return Character.toLowerCase(name.charAt(index));
+            }
+
+            @Override
+            public boolean isWordStart(int index) {
+                return CamelHumps.isWordStart(name, index);
+            }
+        };
+    }
+
+    public static boolean isWordStart(CharSequence name, int index) {
+        if (index == 0) {
+            return true;
+        }
+        char c = name.charAt(index);
+        char previous = name.charAt(index - 1);
+        return Character.isUpperCase(c)
+                || Character.isDigit(c) && !Character.isDigit(previous)
+                || previous == '_'
+                || previous == '$';
+    }
+
+    /**
+     * Matches {@code prefix} against the words of {@code name}, ignoring case: the first characters
+     * match and each following character of the prefix either continues the current word of the
+     * name or starts one of the following words.
+     *
+     * <p>The name positions that can follow the prefix matched so far are tracked as a set, one
+     * prefix character at a time, so matching takes {@code O(name * prefix)} steps however many ways
+     * the prefix can be split into words. Names shorter than {@link Long#SIZE} keep the set in a
+     * {@code long} and do not allocate.
+     */
+    public static boolean matches(Name name, Name prefix) {
+        if (prefix.length() == 0) {
+            return true;
+        }
+        if (name.length() == 0 || name.lowerCaseCharAt(0) != prefix.lowerCaseCharAt(0)) {
+            return false;
+        }
+        if (name.length() >= Long.SIZE) {
+            return matchesLong(name, prefix);
+        }
+        // bit i is set if the prefix matched so far can be followed by name index i
+        long positions = 1L << 1;
+        for (int p = 1; p < prefix.length() && positions != 0; p++) {
+            char c = prefix.lowerCaseCharAt(p);
+            int first = Long.numberOfTrailingZeros(positions);
+            long next = 0;
+            for (int i = first; i < name.length(); i++) {
+                if (name.lowerCaseCharAt(i) != c) {
+                    continue;
+                }
+                if (name.isWordStart(i) || (positions & (1L << i)) != 0) {
+                    next |= 1L << (i + 1);
+                }
+            }
+            positions = next;
+        }
+        return positions != 0;
+    }
+
+    /** {@link #matches(Name, Name)} for names of any length. */
+    private static boolean matchesLong(Name name, Name prefix) {
+        BitSet positions = new BitSet(name.length() + 1);
+        positions.set(1);
+        for (int p = 1; p < prefix.length() && !positions.isEmpty(); p++) {
+            char c = prefix.lowerCaseCharAt(p);
+            BitSet next = new BitSet(name.length() + 1);
+            for (int i = positions.nextSetBit(0); i < name.length(); i++) {
+                if (name.lowerCaseCharAt(i) == c && (name.isWordStart(i) || positions.get(i))) {
+                    next.set(i + 1);
+                }
+            }
+            positions = next;
+        }
+        return !positions.isEmpty();
+    }
+}
@@ -0,0 +1,110 @@
+package com.tyron.code.project.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of latencies with microsecond resolution.
+ *
+ * <p>Values are counted in logarithmic buckets, each power of two is split into eight buckets, so a
+ * reported percentile is within 12.5% of the recorded value. Recording is constant time and the
+ * memory used does not depend on the number of recorded values.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(Duration duration) {
+        recordNanos(duration.toNanos());
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Duration getMean() {
+        long n = count.sum();
+        return n == 0 ? Duration.ZERO : Duration.ofNanos(totalMicros.sum() / n * 1000);
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(maxMicros.get() * 1000);
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 100, such as 50 for the median
+     * @return the latency that the given percentage of the recorded latencies does not exceed,
+     * rounded up to the bucket boundary, or zero if nothing has been recorded
+     */
+    public Duration getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile out of range: " + percentile);
+        }
+        long n = count.sum();
+        if (n == 0) {
+            return Duration.ZERO;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(upperBoundOf(i), maxMicros.get()) * 1000);
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        totalMicros.reset();
+        maxMicros.set(0);
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, p50=%dms, p95=%dms, p99=%dms, max=%dms",
+                getCount(),
+                getPercentile(50).toMillis(),
+                getPercentile(95).toMillis(),
+                getPercentile(99).toMillis(),
+                getMax().toMillis());
+    }
+}
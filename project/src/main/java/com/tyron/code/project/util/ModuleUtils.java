@@ -1,12 +1,15 @@
 package com.tyron.code.project.util;
 
 import com.tyron.code.info.ClassInfo;
+import com.tyron.code.info.ClassNameIndex;
 import com.tyron.code.info.SourceClassInfo;
 import com.tyron.code.project.graph.CompileProjectModuleBFS;
 import com.tyron.code.project.graph.ModuleFileCollectorVisitor;
+import com.tyron.code.project.model.PackageScope;
 import com.tyron.code.project.model.module.JarModule;
 import com.tyron.code.project.model.module.JavaModule;
 import com.tyron.code.project.model.module.Module;
+import com.tyron.code.project.model.module.SourceModule;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -56,6 +59,67 @@ public class ModuleUtils {
         return allFiles;
     }
 
+    /**
+     * Searches the class name indexes of the module, its dependencies and its JDK.
+     *
+     * @return the best {@code limit} classes whose simple name matches {@code query}, best first
+     * @see ClassNameIndex#search(String, int)
+     */
+    public static List<ClassNameIndex.Match<?>> findClasses(JavaModule projectModule, String query, int limit) {
+        List<ClassNameIndex.Match<?>> matches = new ArrayList<>();
+        CompileProjectModuleBFS compileModuleBFS = new CompileProjectModuleBFS(projectModule);
+        compileModuleBFS.traverse(module -> {
+            if (module instanceof SourceModule<?> sourceModule) {
+                matches.addAll(sourceModule.getClassNameIndex().search(query, limit));
+            }
+        });
+        matches.addAll(projectModule.getJdkModule().getClassNameIndex().search(query, limit));
+        matches.sort(null);
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    /**
+     * Looks the simple name up in the class name indexes of the module, its dependencies and its
+     * JDK, in that order.
+     *
+     * @return the classes with exactly this simple name
+     * @see ClassNameIndex#findBySimpleName(String)
+     */
+    public static List<ClassInfo> findClassesBySimpleName(JavaModule projectModule, String simpleName) {
+        List<ClassInfo> classes = new ArrayList<>();
+        CompileProjectModuleBFS compileModuleBFS = new CompileProjectModuleBFS(projectModule);
+        compileModuleBFS.traverse(module -> {
+            if (module instanceof SourceModule<?> sourceModule) {
+                classes.addAll(sourceModule.getClassNameIndex().findBySimpleName(simpleName));
+            }
+        });
+        classes.addAll(projectModule.getJdkModule().getClassNameIndex().findBySimpleName(simpleName));
+        return classes;
+    }
+
+    /**
+     * @param packageName the package name, separated by either {@code '.'} or {@code '/'}
+     * @return the package of each module visible to {@code projectModule}, including its JDK, that
+     * has classes in the package or its sub packages
+     */
+    public static List<PackageScope> findPackages(JavaModule projectModule, String packageName) {
+        List<PackageScope> packages = new ArrayList<>();
+        CompileProjectModuleBFS compileModuleBFS = new CompileProjectModuleBFS(projectModule);
+        compileModuleBFS.traverse(module -> {
+            if (module instanceof SourceModule<?> sourceModule) {
+                PackageScope found = sourceModule.getPackageScope().findPackage(packageName);
+                if (found != null) {
+                    packages.add(found);
+                }
+            }
+        });
+        PackageScope found = projectModule.getJdkModule().getPackageScope().findPackage(packageName);
+        if (found != null) {
+            packages.add(found);
+        }
+        return packages;
+    }
+
     public static List<Module> getDependenciesRecursive(JavaModule module) {
         List<Module> modules = new ArrayList<>();
         CompileProjectModuleBFS compileProjectModuleBFS = new CompileProjectModuleBFS(module);
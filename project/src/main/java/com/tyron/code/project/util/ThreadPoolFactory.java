@@ -4,8 +4,11 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Wrapper for {@link ExecutorService} with easier inline configuration.
@@ -131,6 +134,23 @@ public class ThreadPoolFactory {
 		return Executors.newScheduledThreadPool(size, new FactoryImpl(name, daemon));
 	}
 
+	/**
+	 * @param name
+	 * 		Thread pool name.
+	 * @param parallelism
+	 * 		Number of worker threads to keep busy.
+	 *
+	 * @return {@link ForkJoinPool} with daemon worker threads.
+	 */
+	public static ForkJoinPool newForkJoinPool(String name, int parallelism) {
+		AtomicInteger tid = new AtomicInteger();
+		return new ForkJoinPool(parallelism, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(name + "-" + tid.getAndIncrement());
+			return thread;
+		}, null, false);
+	}
+
 	private static class FactoryImpl implements ThreadFactory {
 		private final String name;
 		private final boolean daemon;
@@ -0,0 +1,64 @@
+package com.tyron.code.project.file;
+
+import com.tyron.code.project.model.TextPosition;
+import com.tyron.code.project.model.TextRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EditHistoryTest {
+
+    @Test
+    public void testDiffCoversChangesBetweenVersions() {
+        FileSnapshot snapshot = FileSnapshot.createFromContent("0123456789\n".repeat(20));
+        List<String> versions = new ArrayList<>();
+        versions.add(snapshot.getContent());
+
+        Random random = new Random(0);
+        for (int i = 0; i < 3 * EditHistory.CAPACITY; i++) {
+            int length = snapshot.getContent().length();
+            int start = random.nextInt(length + 1);
+            int end = Math.min(length, start + random.nextInt(4));
+            snapshot.applyEdit(TextRange.create(snapshot.getPosition(start), snapshot.getPosition(end)),
+                    Optional.empty(), "ab".substring(random.nextInt(3) % 2));
+            versions.add(snapshot.getContent());
+        }
+
+        EditHistory history = snapshot.getEditHistory();
+        long version = history.getVersion();
+        assertEquals(versions.size() - 1, version);
+        assertEquals(version - EditHistory.CAPACITY, history.getOldestVersion());
+        assertTrue(history.changesSince(history.getOldestVersion() - 1).isEmpty());
+
+        for (int i = 0; i < 2000; i++) {
+            long from = history.getOldestVersion() + random.nextInt(EditHistory.CAPACITY + 1);
+            long to = from + random.nextInt((int) (version - from + 1));
+            EditHistory.Change change = history.diff(from, to).orElseThrow();
+
+            String oldContent = versions.get((int) from);
+            String newContent = versions.get((int) to);
+            assertEquals(newContent, oldContent.substring(0, change.getStart())
+                    + newContent.substring(change.getStart(), change.getNewEnd())
+                    + oldContent.substring(change.getOldEnd()));
+            assertEquals(newContent.length() - oldContent.length(), change.getNewEnd() - change.getOldEnd());
+        }
+    }
+
+    @Test
+    public void testChangeSinceIsLocal() {
+        FileSnapshot snapshot = FileSnapshot.createFromContent("class A {\n}\n");
+        for (char c : "int a;".toCharArray()) {
+            TextPosition position = snapshot.getPosition(snapshot.getContent().indexOf('}'));
+            snapshot.applyEdit(TextRange.create(position, position), Optional.empty(), String.valueOf(c));
+        }
+
+        EditHistory.Change change = snapshot.getEditHistory().changesSince(0).orElseThrow();
+        assertEquals(EditHistory.Change.create(0, 6, 10, 10, 16), change);
+    }
+}
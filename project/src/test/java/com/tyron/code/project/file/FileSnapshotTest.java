@@ -0,0 +1,103 @@
+package com.tyron.code.project.file;
+
+import com.tyron.code.project.model.TextEdit;
+import com.tyron.code.project.model.TextPosition;
+import com.tyron.code.project.model.TextRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileSnapshotTest {
+
+    @Test
+    public void testLinesAfterEdits() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            builder.append("line ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        FileSnapshot snapshot = FileSnapshot.createFromContent(builder.toString());
+        String[] texts = {"", "x", "\n", "\r", "\r\n", "a\nb", "\n\n\n", "\u2028"};
+
+        Random random = new Random(0);
+        for (int i = 0; i < 500; i++) {
+            String content = snapshot.getContent();
+            int start = random.nextInt(content.length() + 1);
+            int end = Math.min(content.length(), start + random.nextInt(8));
+            String newText = texts[random.nextInt(texts.length)];
+            snapshot.applyEdit(
+                    TextRange.create(snapshot.getPosition(start), snapshot.getPosition(end)),
+                    Optional.of(end - start),
+                    newText);
+
+            String expected = content.substring(0, start) + newText + content.substring(end);
+            assertEquals(expected, snapshot.getContent());
+            assertLines(snapshot, expected);
+        }
+    }
+
+    @Test
+    public void testApplyEditsInOrder() {
+        FileSnapshot snapshot = FileSnapshot.createFromContent("class A {\n}\n");
+        snapshot.applyEdits(List.of(
+                TextEdit.create(10, 10, "  int a;\n"),
+                TextEdit.create(16, 17, "b"),
+                TextEdit.create(6, 7, "B")));
+
+        assertEquals("class B {\n  int b;\n}\n", snapshot.getContent());
+        assertEquals(1, snapshot.getVersion());
+        assertLines(snapshot, snapshot.getContent());
+        EditHistory.Change change = snapshot.getEditHistory().changesSince(0).orElseThrow();
+        assertEquals(TextEdit.create(6, 10, "B {\n  int b;\n"), change.toTextEdit(snapshot.getContent()));
+    }
+
+    @Test
+    public void testInvalidEditsAreNotApplied() {
+        FileSnapshot snapshot = FileSnapshot.createFromContent("abc");
+        assertThrows(IllegalArgumentException.class, () -> snapshot.applyEdits(List.of(
+                TextEdit.create(0, 1, ""),
+                TextEdit.create(2, 3, ""))));
+
+        assertEquals("abc", snapshot.getContent());
+        assertEquals(0, snapshot.getVersion());
+    }
+
+    @Test
+    public void testPositionOfTrailingLineTerminator() {
+        FileSnapshot snapshot = FileSnapshot.createFromContent("a\r\nb\r");
+        assertEquals(3, snapshot.getLineCount());
+        assertEquals(TextPosition.create(0, 2), snapshot.getPosition(2));
+        assertEquals(TextPosition.create(1, 0), snapshot.getPosition(3));
+        assertEquals(TextPosition.create(2, 0), snapshot.getPosition(5));
+    }
+
+    private static void assertLines(FileSnapshot snapshot, String content) {
+        List<Integer> lineStarts = lineStarts(content);
+        assertEquals(lineStarts.size(), snapshot.getLineCount());
+        for (int line = 0; line < lineStarts.size(); line++) {
+            int lineStart = lineStarts.get(line);
+            assertEquals(TextPosition.create(line, 0), snapshot.getPosition(lineStart));
+        }
+        assertEquals(lineStarts.size() - 1, snapshot.getPosition(content.length()).getLine());
+    }
+
+    private static List<Integer> lineStarts(String content) {
+        List<Integer> lineStarts = new ArrayList<>();
+        lineStarts.add(0);
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n') {
+                continue;
+            }
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                lineStarts.add(i + 1);
+            }
+        }
+        return lineStarts;
+    }
+}
@@ -0,0 +1,56 @@
+package com.tyron.code.project.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RopeTest {
+
+    @Test
+    public void testEditsMatchStringBuilder() {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            expected.append("line ").append(i).append('\n');
+        }
+        Rope rope = Rope.of(expected.toString());
+
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            int start = random.nextInt(expected.length() + 1);
+            int end = Math.min(expected.length(), start + random.nextInt(random.nextBoolean() ? 4 : 5000));
+            String text = random.nextInt(10) == 0 ? "x".repeat(random.nextInt(5000)) : "ab".substring(random.nextInt(3) % 2);
+
+            Rope previous = rope;
+            String previousText = expected.toString();
+            rope = rope.replace(start, end, text);
+            expected.replace(start, end, text);
+
+            assertEquals(previousText, previous.toString());
+            assertEquals(expected.length(), rope.length());
+            int index = random.nextInt(expected.length());
+            assertEquals(expected.charAt(index), rope.charAt(index));
+        }
+        assertEquals(expected.toString(), rope.toString());
+        // an AVL tree is at most 1.45 log2(n) deep
+        int leaves = expected.length() / Rope.MAX_LEAF + 1;
+        assertTrue(rope.depth() <= 1.45 * (Math.log(leaves) / Math.log(2)) + 2, "depth " + rope.depth());
+    }
+
+    @Test
+    public void testSubSequence() {
+        String text = "0123456789".repeat(1000);
+        Rope rope = Rope.of(text);
+
+        assertEquals(text.substring(2040, 2060), rope.subSequence(2040, 2060).toString());
+        assertEquals(text.substring(5000), rope.subSequence(5000, text.length()).toString());
+        assertSame(rope, rope.subSequence(0, text.length()));
+
+        char[] chars = new char[30];
+        rope.getChars(4090, 4110, chars, 5);
+        assertEquals(text.substring(4090, 4110), new String(chars, 5, 20));
+    }
+}
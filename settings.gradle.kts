@@ -8,3 +8,4 @@ include("compiler")
 include("deskptop-test")
 include("javac")
 include("project-impl")
+include("benchmarks")